@@ -0,0 +1,68 @@
+package benchmarks;
+
+import entities.Enemy;
+import entities.Entity;
+import entities.EntityStore;
+import main.Assets;
+import main.GameConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the square root collision check with the squared distance collision check.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    private static final int ENTITIES = 1024;
+
+    private Entity[] entities;
+    private Entity player;
+
+    /**
+     * Scatter entities around the player.
+     */
+    @Setup
+    public void setUp() {
+        Assets.setHeadless(true);
+        SplittableRandom random = new SplittableRandom(42);
+        EntityStore store = new EntityStore();
+        GameConfig config = GameConfig.load(GameConfig.GAME_FILE, GameConfig.MESSAGE_FILE);
+        player = new Enemy(store, config, 500, 500, random);
+        entities = new Entity[ENTITIES];
+        for (int i = 0; i < ENTITIES; i++) {
+            entities[i] = new Enemy(store, config, random.nextInt(1000), random.nextInt(1000), random);
+        }
+    }
+
+    /**
+     * Collision checks using euclideanDistance and collisionRange.
+     * @param blackhole Stops the results being optimised away.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ENTITIES)
+    public void euclideanDistance(Blackhole blackhole) {
+        for (Entity e: entities) {
+            blackhole.consume(player.euclideanDistance(e) < player.collisionRange(e));
+        }
+    }
+
+    /**
+     * Collision checks using collidesWith.
+     * @param blackhole Stops the results being optimised away.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ENTITIES)
+    public void collidesWith(Blackhole blackhole) {
+        for (Entity e: entities) {
+            blackhole.consume(player.collidesWith(e));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package benchmarks;
+
+import entities.EntityStore;
+import entities.FlyingPlatform;
+import entities.PlatformIndex;
+import entities.Player;
+import main.Assets;
+import main.GameConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a frame of the player's jump against different numbers of flying platforms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JumpBenchmark {
+    @Param({"10", "1000", "100000"})
+    public int platforms;
+
+    private Player player;
+    private PlatformIndex flyingPlatforms;
+
+    /**
+     * Scatter flying platforms around the player.
+     */
+    @Setup
+    public void setUp() {
+        Assets.setHeadless(true);
+        SplittableRandom random = new SplittableRandom(42);
+        EntityStore store = new EntityStore();
+        GameConfig config = GameConfig.load(GameConfig.GAME_FILE, GameConfig.MESSAGE_FILE);
+        player = new Player(store, config, 100, 687);
+        ArrayList<FlyingPlatform> list = new ArrayList<>();
+        for (int i = 0; i < platforms; i++) {
+            list.add(new FlyingPlatform(store, config, random.nextInt(platforms * 50), 355 + 200 * random.nextInt(2),
+                    random));
+        }
+        flyingPlatforms = new PlatformIndex(list);
+    }
+
+    /**
+     * A frame of jumping, starting a new jump whenever the player lands.
+     */
+    @Benchmark
+    public void jump() {
+        if (!player.isJumping()) {
+            player.startJumping();
+        }
+        player.jump(flyingPlatforms);
+    }
+}
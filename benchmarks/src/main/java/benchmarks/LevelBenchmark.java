@@ -0,0 +1,91 @@
+package benchmarks;
+
+import bagel.Keys;
+import levels.Level;
+import main.Assets;
+import main.GameSession;
+import main.InputFrame;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-tick cost of a level, and of the phases of a tick, for levels of different sizes.
+ * The player walks back and forth, jumping and shooting, and has enough health that they never die.
+ * Run with -prof gc to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelBenchmark {
+    private static final int TICKS_PER_DIRECTION = 200;
+
+    @Param({"10", "1000", "100000"})
+    public int entities;
+
+    @Param({"1", "2", "3"})
+    public int levelNum;
+
+    private Level level;
+    private InputFrame input;
+    private int tick;
+
+    /**
+     * Build the level without a window.
+     * @throws IOException If the synthetic level file couldn't be written.
+     */
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void setUp() throws IOException {
+        Assets.setHeadless(true);
+        level = GameSession.createLevel(levelNum, SyntheticLevels.config(levelNum, entities, 42), 42);
+        level.getPlayer().setHealth(Integer.MAX_VALUE);
+        input = new InputFrame();
+        tick = 0;
+    }
+
+    /**
+     * Release the level's assets.
+     */
+    @TearDown(org.openjdk.jmh.annotations.Level.Trial)
+    public void tearDown() {
+        level.dispose();
+    }
+
+    private boolean movingRight() {
+        return (tick / TICKS_PER_DIRECTION) % 2 == 0;
+    }
+
+    /**
+     * A whole tick, including Level3's boss fight when levelNum is 3.
+     */
+    @Benchmark
+    public void tick() {
+        input.setDown(Keys.RIGHT, movingRight());
+        input.setDown(Keys.LEFT, !movingRight());
+        input.setPressed(Keys.UP, tick % 90 == 0);
+        input.setPressed(Keys.S, tick % 30 == 0);
+        level.tick(input);
+        tick++;
+    }
+
+    /**
+     * Scrolling the level.
+     */
+    @Benchmark
+    public void moveEntitiesX() {
+        level.moveEntitiesX(movingRight());
+        tick++;
+    }
+
+    /**
+     * Collision checks between the player and collectibles.
+     */
+    @Benchmark
+    public void checkCollectibleCollisions() {
+        level.checkCollectibleCollisions();
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import levels.BinaryLevelSource;
+import levels.CsvLevelSource;
+import levels.LevelSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares opening a CSV level file with opening the same level compiled by LevelCompiler.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelLoadBenchmark {
+    @Param({"10000", "500000"})
+    public int entities;
+
+    private Path csvFile;
+    private Path compiledFile;
+
+    /**
+     * Write the synthetic level as a CSV file and as a compiled level file.
+     * @throws IOException If the level files couldn't be written.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        csvFile = Files.createTempFile("level-" + entities + "-", ".csv");
+        compiledFile = Files.createTempFile("level-" + entities + "-", BinaryLevelSource.EXTENSION);
+        SyntheticLevels.write(csvFile, 2, entities, 42);
+        BinaryLevelSource.write(new CsvLevelSource(csvFile.toString()), compiledFile, 1024);
+    }
+
+    /**
+     * Delete the level files.
+     * @throws IOException If the level files couldn't be deleted.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(csvFile);
+        Files.delete(compiledFile);
+    }
+
+    /**
+     * Open the CSV level file.
+     * @return The level, so it isn't optimised away.
+     */
+    @Benchmark
+    public LevelSource csv() {
+        return LevelSource.open(csvFile.toString());
+    }
+
+    /**
+     * Open the compiled level file.
+     * @return The level, so it isn't optimised away.
+     */
+    @Benchmark
+    public LevelSource compiled() {
+        return LevelSource.open(compiledFile.toString());
+    }
+}
@@ -0,0 +1,76 @@
+package benchmarks;
+
+import main.GameConfig;
+import main.IOUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Writes level files of any size, so benchmarks can measure how the game scales with the number of entities.
+ */
+public class SyntheticLevels {
+    private static final String[] LEVEL1_TYPES = {"COIN", "ENEMY"};
+    private static final String[] LEVEL2_TYPES = {"COIN", "ENEMY", "FLYING_PLATFORM", "DOUBLE_SCORE", "INVINCIBLE_POWER"};
+    private static final int SPACING = 50;
+
+    /**
+     * Write a synthetic level file and get game settings which point the level at it.
+     * @param levelNum Which number level the file is for, which decides what entities it contains.
+     * @param entities How many coins, enemies, power-ups and flying platforms to put in the level.
+     * @param seed The seed used to choose entity types and heights.
+     * @return The game settings, with the level's file replaced by the synthetic one.
+     * @throws IOException If the level file couldn't be written.
+     */
+    public static GameConfig config(int levelNum, int entities, long seed) throws IOException {
+        Path file = Files.createTempFile("level" + levelNum + "-" + entities + "-", ".csv");
+        file.toFile().deleteOnExit();
+        write(file, levelNum, entities, seed);
+
+        Properties game_props = IOUtils.readPropertiesFile(GameConfig.GAME_FILE);
+        game_props.setProperty("level" + levelNum + "File", file.toString());
+        return new GameConfig(game_props, IOUtils.readPropertiesFile(GameConfig.MESSAGE_FILE));
+    }
+
+    /**
+     * Write a synthetic level file.
+     * Entities are spread evenly along the x-axis in front of the player.
+     * @param file Where to write the level.
+     * @param levelNum Which number level the file is for, which decides what entities it contains.
+     * @param entities How many coins, enemies, power-ups and flying platforms to put in the level.
+     * @param seed The seed used to choose entity types and heights.
+     * @throws IOException If the level file couldn't be written.
+     */
+    public static void write(Path file, int levelNum, int entities, long seed) throws IOException {
+        Random random = new Random(seed);
+        String[] types = levelNum == 1 ? LEVEL1_TYPES : LEVEL2_TYPES;
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("PLATFORM,3000,745\n");
+            writer.write("PLAYER,100,687\n");
+            for (int i = 0; i < entities; i++) {
+                String type = types[random.nextInt(types.length)];
+                int x = 300 + i * SPACING;
+                writer.write(type + "," + x + "," + heightOf(type, random) + "\n");
+            }
+            if (levelNum == 3) {
+                writer.write("ENEMY_BOSS,600,680\n");
+            }
+            writer.write("END_FLAG," + (400 + entities * SPACING) + ",670\n");
+        }
+    }
+
+    private static int heightOf(String type, Random random) {
+        switch (type) {
+            case "ENEMY":
+                return 695;
+            case "FLYING_PLATFORM":
+                return random.nextBoolean() ? 555 : 355;
+            default:
+                return 310 + 100 * random.nextInt(3);
+        }
+    }
+}
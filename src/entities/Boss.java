@@ -1,15 +1,19 @@
 package entities;
 
-import bagel.Image;
+import levels.LevelRandom;
+import main.GameConfig;
 
-import java.util.concurrent.ThreadLocalRandom;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * The boss, which the player fights in level 3.
  */
 public class Boss extends Entity implements Damageable {
-    private static final double RADIUS = Double.parseDouble(APP_PROPERTIES.getProperty("gameObjects.enemyBoss.radius"));
-    private double health = Double.parseDouble(APP_PROPERTIES.getProperty("gameObjects.enemyBoss.health"));
+    private double health;
+    private final long RANDOM_SEED;
+    private int fireballAttempts = 0;
 
     /**
      * Get the boss's current health.
@@ -36,8 +40,7 @@ public class Boss extends Entity implements Damageable {
     public void die() {
         moveY(false, 2);
     }
-    private final int ACTIVATION_RANGE = Integer.parseInt(
-            APP_PROPERTIES.getProperty("gameObjects.enemyBoss.activationRadius"));
+    private final int ACTIVATION_RANGE;
     private final int FRAMES_BETWEEN_FIREBALL_ATTEMPT = 100;
     private int framesUntilFireballAttempt = 0;
 
@@ -82,20 +85,56 @@ public class Boss extends Entity implements Damageable {
 
     /**
      * Randomly decide if the boss's fireball throw is successful.
+     * Each attempt is drawn from the boss's seed and how many attempts have been made, so reading back the number
+     * of attempts restores the boss's random state.
      * @return Whether the boss's fireball throw has succeeded.
      */
     public boolean successfulFireballThrow() {
-        boolean b = ThreadLocalRandom.current().nextBoolean();
-        return b;
+        fireballAttempts++;
+        return LevelRandom.draw(RANDOM_SEED, fireballAttempts);
+    }
+
+    /**
+     * Write the boss's position, health and fireball timing.
+     * @param out Where to write the boss's state.
+     * @throws IOException If the state can't be written.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeDouble(health);
+        out.writeInt(framesUntilFireballAttempt);
+        out.writeInt(fireballAttempts);
+    }
+
+    /**
+     * Read back the boss's state, as written by writeState.
+     * @param in Where to read the boss's state from.
+     * @throws IOException If the state can't be read.
+     */
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        health = in.readDouble();
+        framesUntilFireballAttempt = in.readInt();
+        fireballAttempts = in.readInt();
+        if (fireballAttempts < 0) {
+            throw new IOException("The boss can't have attempted " + fireballAttempts + " fireball throws");
+        }
     }
 
     /**
      * The boss's default constructor.
+     * @param store The store which holds the boss's position and movement.
+     * @param config The game's settings.
      * @param x The boss's initial x coordinate.
      * @param y The boss's initial y coordinate.
+     * @param randomSeed Decides whether each of the boss's fireball throws succeeds.
      */
-    public Boss(int x, int y) {
-        super(x, y, new Image(APP_PROPERTIES.getProperty("gameObjects.enemyBoss.image")), RADIUS,
-                Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.enemyBoss.speed")), 0);
+    public Boss(EntityStore store, GameConfig config, int x, int y, long randomSeed) {
+        super(store, x, y, config.BOSS.IMAGE, config.BOSS.RADIUS, 0);
+        RANDOM_SEED = randomSeed;
+        health = config.BOSS.HEALTH;
+        ACTIVATION_RANGE = config.BOSS_ACTIVATION_RADIUS;
     }
 }
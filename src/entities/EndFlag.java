@@ -1,23 +1,22 @@
 package entities;
 
-import bagel.Image;
+import main.GameConfig;
 
 /**
  * Class for representing end flag in game.
  */
 public class EndFlag extends Entity {
-    private static final double RADIUS = Double.parseDouble(Entity.APP_PROPERTIES.getProperty("gameObjects.endFlag.radius"));
-
     /**
      * Default constructor for EndFlag entity.
+     * @param store The store which holds the end flag's position and movement.
+     * @param config The game's settings.
      * @param x The end flag's initial x coordinate.
      * @param y The end flag's inital y coordinate.
      */
-    public EndFlag(int x, int y) {
-        super(x, y,
-            new Image(Entity.APP_PROPERTIES.getProperty("gameObjects.endFlag.image")),
-            RADIUS,
-            Integer.parseInt(Entity.APP_PROPERTIES.getProperty("gameObjects.endFlag.speed")),
+    public EndFlag(EntityStore store, GameConfig config, int x, int y) {
+        super(store, x, y,
+            config.END_FLAG.IMAGE,
+            config.END_FLAG.RADIUS,
             0);
     }
 }
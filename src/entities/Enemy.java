@@ -1,6 +1,11 @@
 package entities;
 
-import bagel.*;
+import main.GameConfig;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.SplittableRandom;
 
 /**
  * Class to represent in game enemies.
@@ -9,8 +14,7 @@ import bagel.*;
  */
 public class Enemy extends RandomMovementEntity {
 
-    private final double DAMAGE = Double.parseDouble(APP_PROPERTIES.getProperty("gameObjects.enemy.damageSize"));
-    private final static double RADIUS = Double.parseDouble(APP_PROPERTIES.getProperty("gameObjects.enemy.radius"));
+    private final double DAMAGE;
     private boolean hasDamagedPlayer = false;
 
     /**
@@ -37,18 +41,43 @@ public class Enemy extends RandomMovementEntity {
         return DAMAGE;
     }
 
+    /**
+     * Write the enemy's position, and whether it has damaged the player.
+     * @param out Where to write the enemy's state.
+     * @throws IOException If the state can't be written.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeBoolean(hasDamagedPlayer);
+    }
+
+    /**
+     * Read back the enemy's state, as written by writeState.
+     * @param in Where to read the enemy's state from.
+     * @throws IOException If the state can't be read.
+     */
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        hasDamagedPlayer = in.readBoolean();
+    }
+
     /**
      * Default constructor for enemy.
+     * @param store The store which holds the enemy's position and movement.
+     * @param config The game's settings.
      * @param x The initial x coordinate for the enemy.
      * @param y The initial x coordinate for the enemy.
+     * @param random Decides which direction the enemy starts moving in.
      */
-    public Enemy(int x, int y) {
-        super(x, y,
-            new Image(APP_PROPERTIES.getProperty("gameObjects.enemy.image")),
-            RADIUS,
-            Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.enemy.speed")),
-            0, Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.enemy.randomSpeed")),
-                Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.enemy.maxRandomDisplacementX"))
+    public Enemy(EntityStore store, GameConfig config, int x, int y, SplittableRandom random) {
+        super(store, x, y,
+            config.ENEMY.IMAGE,
+            config.ENEMY.RADIUS,
+            0, config.ENEMY.RANDOM_SPEED,
+                config.ENEMY.MAX_RANDOM_DISPLACEMENT_X, random
         );
+        DAMAGE = config.ENEMY.DAMAGE;
     }
 }
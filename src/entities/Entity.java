@@ -1,27 +1,43 @@
 package entities;
 
 import bagel.Image;
+import main.Assets;
 
-import java.util.Properties;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * Abstract class for game entities.
+ * An entity's position, speed and collision radius are kept in its level's EntityStore, and the entity reads and
+ * writes them through its handle.
  */
 public abstract class Entity {
-    protected static final Properties APP_PROPERTIES = main.IOUtils.readPropertiesFile("res/app.properties");
-    protected int x;
-    protected int y;
+    /**
+     * The store which holds the entity's position and movement.
+     */
+    protected final EntityStore STORE;
+    /**
+     * The entity's slot in the store.
+     */
+    protected final int HANDLE;
     protected final Image IMAGE;
-    private double radius;
-    protected int speedX;
-    protected int speedY;
+    private final String IMAGE_PATH;
+
+    /**
+     * Get the entity's slot in its store, which stays the same until the entity is disposed.
+     * @return The entity's handle.
+     */
+    public int getHandle() {
+        return HANDLE;
+    }
 
     /**
      * Get the collision radius of the entity.
      * @return The collision radius of the entity.
      */
     public double getRadius() {
-        return radius;
+        return STORE.radii[HANDLE];
     }
 
     /**
@@ -29,7 +45,7 @@ public abstract class Entity {
      * @return The current x value of the entity.
      */
     public int getX() {
-        return x;
+        return STORE.xs[HANDLE];
     }
 
     /**
@@ -37,7 +53,7 @@ public abstract class Entity {
      * @param x The current x value of the entity.
      */
     public void setX(int x) {
-        this.x = x;
+        STORE.xs[HANDLE] = x;
     }
 
     /**
@@ -45,7 +61,7 @@ public abstract class Entity {
      * @return The current y value of the entity.
      */
     public int getY() {
-        return y;
+        return STORE.ys[HANDLE];
     }
 
     /**
@@ -53,7 +69,49 @@ public abstract class Entity {
      * @param y The current y value of the entity.
      */
     public void setY(int y) {
-        this.y = y;
+        STORE.ys[HANDLE] = y;
+    }
+
+    /**
+     * Get which cell of a spatial grid the entity is in.
+     * @return The grid's id for the entity's cell, or -1 if the entity isn't in a grid.
+     */
+    public int getGridCell() {
+        return STORE.gridCells[HANDLE];
+    }
+
+    /**
+     * Get where the entity is in its spatial grid cell's list of entities.
+     * @return The entity's index in its cell, or -1 if the entity isn't in a grid.
+     */
+    public int getGridSlot() {
+        return STORE.gridSlots[HANDLE];
+    }
+
+    /**
+     * Update where the entity is in a spatial grid. Should only be called by the grid.
+     * @param cell The grid's id for the entity's cell, or -1 if the entity has been removed from the grid.
+     * @param slot The entity's index in its cell, or -1 if the entity has been removed from the grid.
+     */
+    public void setGridPosition(int cell, int slot) {
+        STORE.gridCells[HANDLE] = cell;
+        STORE.gridSlots[HANDLE] = slot;
+    }
+
+    /**
+     * Get the entity's current speed along the y-axis.
+     * @return The entity's current speed along the y-axis.
+     */
+    protected int getSpeedY() {
+        return STORE.speedYs[HANDLE];
+    }
+
+    /**
+     * Set the entity's current speed along the y-axis.
+     * @param speedY The entity's current speed along the y-axis.
+     */
+    protected void setSpeedY(int speedY) {
+        STORE.speedYs[HANDLE] = speedY;
     }
 
     /**
@@ -66,36 +124,69 @@ public abstract class Entity {
 
     /**
      * Draw the entity to the screen.
+     * @param renderer The renderer to draw the entity with.
+     * @param camera The camera the level is being viewed through.
+     * @param alpha How far between the last tick and the next tick to draw the entity, from 0 to 1.
      */
-    public void draw() {
-        IMAGE.draw(x, y);
+    public void draw(main.Renderer renderer, main.Camera camera, double alpha) {
+        renderer.drawImage(getIMAGE(), camera.projectX(STORE.previousXs[HANDLE], STORE.xs[HANDLE], alpha),
+                main.Camera.interpolate(STORE.previousYs[HANDLE], STORE.ys[HANDLE], alpha));
     }
 
     /**
-     * Move the entity along the screen's x-axis.
-     * @param right Whether the entity should move right (true) or left (false).
+     * Remember the entity's position at the start of a tick, so drawing can interpolate from there.
+     * Only needs to be called for entities which may move during the tick.
      */
-    public void moveX(boolean right) {
-        if (right) {
-            x -= speedX;
-        }
-        else {
-            x += speedX;
+    public void savePosition() {
+        STORE.previousXs[HANDLE] = STORE.xs[HANDLE];
+        STORE.previousYs[HANDLE] = STORE.ys[HANDLE];
+    }
+
+    /**
+     * Release the entity's image back to the shared asset registry, and its slot back to its store.
+     * Should be called once the entity has been removed from its level. Does nothing if called again.
+     */
+    public void dispose() {
+        if (STORE.release(HANDLE, this)) {
+            Assets.releaseImage(IMAGE_PATH);
         }
     }
 
+    /**
+     * Get whether the entity has been disposed of, and so is no longer part of its level.
+     * @return Whether the entity has been disposed of.
+     */
+    public boolean isDisposed() {
+        return !STORE.owns(HANDLE, this);
+    }
+
+    /**
+     * Write everything about the entity which can change after it is created, such as its position.
+     * Subclasses with state of their own should write it after calling this.
+     * @param out Where to write the entity's state.
+     * @throws IOException If the state can't be written.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        STORE.writeState(HANDLE, out);
+    }
+
+    /**
+     * Read back the entity's state, as written by writeState.
+     * The entity must have been created from the same settings as the one whose state was written.
+     * @param in Where to read the entity's state from.
+     * @throws IOException If the state can't be read.
+     */
+    public void readState(DataInput in) throws IOException {
+        STORE.readState(HANDLE, in);
+    }
+
     /**
      * Move the entity along the screen's x-axis.
      * @param right Whether the entity should move right (true) or left (false).
      * @param speed How fast the entity should move in a frame.
      */
     public void moveX(boolean right, int speed) {
-        if (right) {
-            x -= speed;
-        }
-        else {
-            x += speed;
-        }
+        STORE.xs[HANDLE] += right ? -speed : speed;
     }
 
     /**
@@ -103,12 +194,7 @@ public abstract class Entity {
      * @param up Whether the entity should move up (true) or down (false).
      */
     public void moveY(boolean up) {
-        if (up) {
-            y -= speedY;
-        }
-        else {
-            y += speedY;
-        }
+        moveY(up, STORE.speedYs[HANDLE]);
     }
 
     /**
@@ -117,12 +203,7 @@ public abstract class Entity {
      * @param speed How fast the entity should move in a frame.
      */
     public void moveY(boolean up, int speed) {
-        if (up) {
-            y -= speed;
-        }
-        else {
-            y += speed;
-        }
+        STORE.ys[HANDLE] += up ? -speed : speed;
     }
 
     /**
@@ -134,6 +215,20 @@ public abstract class Entity {
         return this.getRadius() + entity.getRadius();
     }
 
+    /**
+     * Check whether the calling entity is within collision range of another entity.
+     * Compares the squared distance with the squared collision range, so no square root is needed.
+     * @param entity The entity to check for collision with.
+     * @return Whether the two entities are colliding.
+     */
+    public boolean collidesWith(Entity entity) {
+        // Both entities are normally in the same store, so this reads straight from its arrays
+        long dx = entity.STORE.xs[entity.HANDLE] - STORE.xs[HANDLE];
+        long dy = entity.STORE.ys[entity.HANDLE] - STORE.ys[HANDLE];
+        double range = STORE.radii[HANDLE] + entity.STORE.radii[entity.HANDLE];
+        return dx * dx + dy * dy < range * range;
+    }
+
     /**
      * Calculate the Euclidean distance between the calling entity and another.
      * @param entity The entity to check the Euclidean distance from.
@@ -145,19 +240,17 @@ public abstract class Entity {
 
     /**
      * Default constructor for an Entity.
+     * @param store The store which holds the entity's position and movement.
      * @param x The entity's initial x coordinate.
      * @param y The entity's initial y coordinate.
-     * @param image The entity's default image.
+     * @param imagePath The path to the entity's default image.
      * @param radius The entity's collision radius.
-     * @param speedX The entity's default speed along the X axis.
      * @param speedY The entity's default speed along the Y axis.
      */
-    public Entity(int x, int y, Image image, double radius, int speedX, int speedY) {
-        this.x = x;
-        this.y = y;
-        this.IMAGE = image;
-        this.radius = radius;
-        this.speedX = speedX;
-        this.speedY = speedY;
+    public Entity(EntityStore store, int x, int y, String imagePath, double radius, int speedY) {
+        this.STORE = store;
+        this.HANDLE = store.allocate(this, x, y, radius, speedY);
+        this.IMAGE = Assets.acquireImage(imagePath);
+        this.IMAGE_PATH = imagePath;
     }
 }
@@ -0,0 +1,452 @@
+package entities;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Holds the position, speed and movement state of every entity in a level in parallel arrays, indexed by a handle
+ * given to each entity when it is created.
+ * Entity objects are views onto their handle's slot, so passes over every entity, such as saving positions and
+ * random movement, are linear sweeps over a few arrays rather than a walk over scattered objects.
+ * Handles stay the same for an entity's whole life, and are reused once the entity is released.
+ * Entities which wander back and forth are kept in a list while they are awake, and in heaps ordered by x while they
+ * are asleep, so each tick only touches the entities which are awake or about to wake.
+ */
+public class EntityStore {
+    private static final int INITIAL_CAPACITY = 64;
+    /**
+     * Set for slots which belong to an entity.
+     */
+    static final int ALIVE = 1;
+    /**
+     * Set for entities which wander back and forth on their own.
+     */
+    static final int MOVES_RANDOMLY = 1 << 1;
+    /**
+     * Set while a randomly moving entity is heading in the "right" direction of moveX.
+     */
+    static final int FACING_RIGHT = 1 << 2;
+    /**
+     * Set while a randomly moving entity is too far from the screen to be moved every tick.
+     */
+    static final int SLEEPING = 1 << 3;
+    // The flags which change as an entity moves, rather than being fixed when it is created
+    private static final int MOVEMENT_FLAGS = FACING_RIGHT | SLEEPING;
+    // Which list a randomly moving entity is kept in
+    private static final byte NOT_LISTED = 0;
+    private static final byte AWAKE = 1;
+    // Restored as asleep, but not yet sorted into a heap, since the screen's position wasn't known
+    private static final byte RESTORED_ASLEEP = 2;
+    private static final byte ASLEEP_LEFT = 3;
+    private static final byte ASLEEP_RIGHT = 4;
+
+    int[] xs = new int[INITIAL_CAPACITY];
+    int[] ys = new int[INITIAL_CAPACITY];
+    int[] previousXs = new int[INITIAL_CAPACITY];
+    int[] previousYs = new int[INITIAL_CAPACITY];
+    int[] speedYs = new int[INITIAL_CAPACITY];
+    double[] radii = new double[INITIAL_CAPACITY];
+    int[] flags = new int[INITIAL_CAPACITY];
+    int[] randomSpeeds = new int[INITIAL_CAPACITY];
+    int[] maxRandomDisplacements = new int[INITIAL_CAPACITY];
+    int[] randomDistancesMoved = new int[INITIAL_CAPACITY];
+    private int[] sleptAtTicks = new int[INITIAL_CAPACITY];
+    int[] gridCells = new int[INITIAL_CAPACITY];
+    int[] gridSlots = new int[INITIAL_CAPACITY];
+    private byte[] moverLists = new byte[INITIAL_CAPACITY];
+    private int[] moverPositions = new int[INITIAL_CAPACITY];
+    private final HandleList awake = new HandleList(AWAKE, 0);
+    private final HandleList restoredAsleep = new HandleList(RESTORED_ASLEEP, 0);
+    // Asleep to the left of the awake area, with the rightmost first
+    private final HandleList asleepLeft = new HandleList(ASLEEP_LEFT, -1);
+    // Asleep to the right of the awake area, with the leftmost first
+    private final HandleList asleepRight = new HandleList(ASLEEP_RIGHT, 1);
+    private Entity[] views = new Entity[INITIAL_CAPACITY];
+    private int[] freeHandles = new int[INITIAL_CAPACITY];
+    private int freeCount = 0;
+    private int highWater = 0;
+    private int size = 0;
+
+    /**
+     * Get how many entities are in the store.
+     * @return How many entities are in the store.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remember the position of every entity at the start of a tick, so drawing can interpolate from there.
+     */
+    public void savePositions() {
+        System.arraycopy(xs, 0, previousXs, 0, highWater);
+        System.arraycopy(ys, 0, previousYs, 0, highWater);
+    }
+
+    /**
+     * Move every entity which wanders back and forth by one tick, apart from those which are asleep.
+     */
+    public void moveRandomly() {
+        for (int i = 0; i < awake.size; i++) {
+            moveRandomly(awake.handles[i]);
+        }
+    }
+
+    /**
+     * Get how many entities which wander back and forth are awake.
+     * @return How many randomly moving entities are awake.
+     */
+    public int getAwakeCount() {
+        return awake.size;
+    }
+
+    /**
+     * Get one of the entities which wander back and forth and are awake. These are the only entities moveRandomly
+     * moves, so only they need to be moved in any index of positions.
+     * The order changes whenever an entity falls asleep or wakes up.
+     * @param index Which awake entity to get, from 0 to getAwakeCount() - 1.
+     * @return The awake entity.
+     */
+    public Entity getAwake(int index) {
+        return views[awake.handles[index]];
+    }
+
+    /**
+     * Put entities which wander back and forth to sleep once they leave an area, and wake them when they return.
+     * Sleeping entities aren't moved at all. When they wake, they are fast forwarded to where they would have been
+     * had they kept moving, so sleeping doesn't change where anything ends up.
+     * Takes time in proportion to how many entities are awake, plus those which fall asleep or wake up.
+     * @param left The smallest x coordinate in which entities are kept awake.
+     * @param right The largest x coordinate in which entities are kept awake.
+     * @param tick How many ticks the level has been running for.
+     * @return How many entities are asleep.
+     */
+    public int updateSleeping(int left, int right, int tick) {
+        // Entities falling asleep are found before any are woken, so an entity never wakes and sleeps in one tick
+        for (int i = awake.size - 1; i >= 0; i--) {
+            int handle = awake.handles[i];
+            if (xs[handle] < left || xs[handle] > right) {
+                awake.removeAt(i);
+                flags[handle] |= SLEEPING;
+                sleptAtTicks[handle] = tick;
+                (xs[handle] < left ? asleepLeft : asleepRight).add(handle);
+            }
+        }
+        while (restoredAsleep.size > 0) {
+            int handle = restoredAsleep.handles[restoredAsleep.size - 1];
+            restoredAsleep.removeAt(restoredAsleep.size - 1);
+            sortSleeper(handle, left, right, tick);
+        }
+        // Sleeping entities don't move, so only those the edges of the area have passed can be in it
+        while (asleepLeft.size > 0 && xs[asleepLeft.handles[0]] >= left) {
+            int handle = asleepLeft.handles[0];
+            asleepLeft.removeAt(0);
+            sortSleeper(handle, left, right, tick);
+        }
+        while (asleepRight.size > 0 && xs[asleepRight.handles[0]] <= right) {
+            int handle = asleepRight.handles[0];
+            asleepRight.removeAt(0);
+            sortSleeper(handle, left, right, tick);
+        }
+        return asleepLeft.size + asleepRight.size;
+    }
+
+    // Wake a sleeping entity if it is in the awake area, or put it in the heap for the side of the area it is on
+    private void sortSleeper(int handle, int left, int right, int tick) {
+        if (xs[handle] < left) {
+            asleepLeft.add(handle);
+        }
+        else if (xs[handle] > right) {
+            asleepRight.add(handle);
+        }
+        else {
+            flags[handle] &= ~SLEEPING;
+            fastForward(handle, tick - sleptAtTicks[handle]);
+            previousXs[handle] = xs[handle];
+            awake.add(handle);
+        }
+    }
+
+    /**
+     * Start moving an entity back and forth on its own every tick.
+     * @param handle The entity's handle.
+     */
+    void startMovingRandomly(int handle) {
+        flags[handle] |= MOVES_RANDOMLY;
+        awake.add(handle);
+    }
+
+    private void unlist(int handle) {
+        switch (moverLists[handle]) {
+            case AWAKE:
+                awake.removeAt(moverPositions[handle]);
+                break;
+            case RESTORED_ASLEEP:
+                restoredAsleep.removeAt(moverPositions[handle]);
+                break;
+            case ASLEEP_LEFT:
+                asleepLeft.removeAt(moverPositions[handle]);
+                break;
+            case ASLEEP_RIGHT:
+                asleepRight.removeAt(moverPositions[handle]);
+                break;
+        }
+    }
+
+    /**
+     * Move one entity which wanders back and forth to where it would be after a number of ticks.
+     * The movement repeats once the entity has gone back and forth, so at most one cycle is simulated.
+     * @param handle The entity's handle.
+     * @param ticks How many ticks to move the entity by.
+     */
+    void fastForward(int handle, int ticks) {
+        int speed = randomSpeeds[handle];
+        if (speed > 0) {
+            // Ticks spent moving in one direction, including the tick on which the entity turns around
+            int halfCycle = (maxRandomDisplacements[handle] + speed - 1) / speed + 1;
+            for (int i = ticks % (2 * halfCycle); i > 0; i--) {
+                moveRandomly(handle);
+            }
+        }
+    }
+
+    /**
+     * Move one entity which wanders back and forth by one tick.
+     * The entity moves a step, then turns around once it has moved its maximum distance.
+     * @param handle The entity's handle.
+     */
+    void moveRandomly(int handle) {
+        int speed = randomSpeeds[handle];
+        xs[handle] += (flags[handle] & FACING_RIGHT) != 0 ? -speed : speed;
+        if (randomDistancesMoved[handle] >= maxRandomDisplacements[handle]) {
+            randomDistancesMoved[handle] = 0;
+            flags[handle] ^= FACING_RIGHT;
+        }
+        else {
+            randomDistancesMoved[handle] += speed;
+        }
+    }
+
+    /**
+     * Write everything about an entity's slot which can change after the entity is created.
+     * @param handle The entity's handle.
+     * @param out Where to write the slot's state.
+     * @throws IOException If the state can't be written.
+     */
+    void writeState(int handle, DataOutput out) throws IOException {
+        out.writeInt(xs[handle]);
+        out.writeInt(ys[handle]);
+        out.writeInt(previousXs[handle]);
+        out.writeInt(previousYs[handle]);
+        out.writeInt(speedYs[handle]);
+        out.writeByte(flags[handle] & MOVEMENT_FLAGS);
+        if ((flags[handle] & MOVES_RANDOMLY) != 0) {
+            out.writeInt(randomDistancesMoved[handle]);
+        }
+        if ((flags[handle] & SLEEPING) != 0) {
+            out.writeInt(sleptAtTicks[handle]);
+        }
+    }
+
+    /**
+     * Read back an entity's slot written by writeState.
+     * The entity must have been created the same way as the one whose state was written.
+     * @param handle The entity's handle.
+     * @param in Where to read the slot's state from.
+     * @throws IOException If the state can't be read.
+     */
+    void readState(int handle, DataInput in) throws IOException {
+        xs[handle] = in.readInt();
+        ys[handle] = in.readInt();
+        previousXs[handle] = in.readInt();
+        previousYs[handle] = in.readInt();
+        speedYs[handle] = in.readInt();
+        flags[handle] = (flags[handle] & ~MOVEMENT_FLAGS) | (in.readByte() & MOVEMENT_FLAGS);
+        if ((flags[handle] & MOVES_RANDOMLY) != 0) {
+            randomDistancesMoved[handle] = in.readInt();
+        }
+        if ((flags[handle] & SLEEPING) != 0) {
+            sleptAtTicks[handle] = in.readInt();
+        }
+        if ((flags[handle] & MOVES_RANDOMLY) != 0) {
+            unlist(handle);
+            ((flags[handle] & SLEEPING) != 0 ? restoredAsleep : awake).add(handle);
+        }
+    }
+
+    /**
+     * Check whether a slot still belongs to an entity.
+     * @param handle The entity's handle.
+     * @param view The entity.
+     * @return Whether the slot belongs to the entity, which is false once the entity has been released.
+     */
+    boolean owns(int handle, Entity view) {
+        return views[handle] == view;
+    }
+
+    /**
+     * Give a new entity a slot in the store.
+     * @param view The entity which the slot belongs to.
+     * @param x The entity's initial x coordinate.
+     * @param y The entity's initial y coordinate.
+     * @param radius The entity's collision radius.
+     * @param speedY The entity's default speed along the y-axis.
+     * @return The entity's handle.
+     */
+    int allocate(Entity view, int x, int y, double radius, int speedY) {
+        int handle;
+        if (freeCount > 0) {
+            handle = freeHandles[--freeCount];
+        }
+        else {
+            if (highWater == xs.length) {
+                grow();
+            }
+            handle = highWater++;
+        }
+        xs[handle] = x;
+        ys[handle] = y;
+        previousXs[handle] = x;
+        previousYs[handle] = y;
+        speedYs[handle] = speedY;
+        radii[handle] = radius;
+        flags[handle] = ALIVE;
+        randomSpeeds[handle] = 0;
+        maxRandomDisplacements[handle] = 0;
+        randomDistancesMoved[handle] = 0;
+        gridCells[handle] = -1;
+        gridSlots[handle] = -1;
+        views[handle] = view;
+        size++;
+        return handle;
+    }
+
+    /**
+     * Give an entity's slot back to the store, so it can be used by a new entity.
+     * @param handle The entity's handle.
+     * @param view The entity which the slot belongs to.
+     * @return Whether the slot was released, which is false if the entity had already been released.
+     */
+    boolean release(int handle, Entity view) {
+        if (views[handle] != view) {
+            return false;
+        }
+        unlist(handle);
+        views[handle] = null;
+        flags[handle] = 0;
+        if (freeCount == freeHandles.length) {
+            freeHandles = Arrays.copyOf(freeHandles, freeCount * 2);
+        }
+        freeHandles[freeCount++] = handle;
+        size--;
+        return true;
+    }
+
+    private void grow() {
+        int capacity = xs.length * 2;
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        previousXs = Arrays.copyOf(previousXs, capacity);
+        previousYs = Arrays.copyOf(previousYs, capacity);
+        speedYs = Arrays.copyOf(speedYs, capacity);
+        radii = Arrays.copyOf(radii, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        randomSpeeds = Arrays.copyOf(randomSpeeds, capacity);
+        maxRandomDisplacements = Arrays.copyOf(maxRandomDisplacements, capacity);
+        randomDistancesMoved = Arrays.copyOf(randomDistancesMoved, capacity);
+        sleptAtTicks = Arrays.copyOf(sleptAtTicks, capacity);
+        gridCells = Arrays.copyOf(gridCells, capacity);
+        gridSlots = Arrays.copyOf(gridSlots, capacity);
+        moverLists = Arrays.copyOf(moverLists, capacity);
+        moverPositions = Arrays.copyOf(moverPositions, capacity);
+        views = Arrays.copyOf(views, capacity);
+    }
+
+    /**
+     * A list of the handles of randomly moving entities, which can be kept as a heap ordered by x.
+     * Each entity remembers which list it is in and where, so it can be removed in constant time, or logarithmic time
+     * from a heap.
+     */
+    private final class HandleList {
+        private final byte ID;
+        // 0 for a list in no order, 1 for a heap with the smallest x first, or -1 for the largest x first
+        private final int ORDER;
+        private int[] handles = new int[INITIAL_CAPACITY];
+        private int size = 0;
+
+        private void add(int handle) {
+            if (size == handles.length) {
+                handles = Arrays.copyOf(handles, size * 2);
+            }
+            place(size++, handle);
+            moverLists[handle] = ID;
+            if (ORDER != 0) {
+                siftUp(size - 1);
+            }
+        }
+
+        private void removeAt(int index) {
+            moverLists[handles[index]] = NOT_LISTED;
+            int last = --size;
+            if (index != last) {
+                place(index, handles[last]);
+                if (ORDER != 0 && !siftUp(index)) {
+                    siftDown(index);
+                }
+            }
+        }
+
+        private void place(int index, int handle) {
+            handles[index] = handle;
+            moverPositions[handle] = index;
+        }
+
+        private boolean before(int index, int other) {
+            return ORDER * Integer.compare(xs[handles[index]], xs[handles[other]]) < 0;
+        }
+
+        private void swap(int index, int other) {
+            int handle = handles[index];
+            place(index, handles[other]);
+            place(other, handle);
+        }
+
+        private boolean siftUp(int index) {
+            boolean moved = false;
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (!before(index, parent)) {
+                    break;
+                }
+                swap(index, parent);
+                index = parent;
+                moved = true;
+            }
+            return moved;
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    return;
+                }
+                if (child + 1 < size && before(child + 1, child)) {
+                    child++;
+                }
+                if (!before(child, index)) {
+                    return;
+                }
+                swap(index, child);
+                index = child;
+            }
+        }
+
+        private HandleList(byte id, int order) {
+            this.ID = id;
+            this.ORDER = order;
+        }
+    }
+}
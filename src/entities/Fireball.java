@@ -1,16 +1,20 @@
 package entities;
 
-import bagel.Image;
+import main.GameConfig;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * An entity which can be shot by either the player or the boss.
  */
 public class Fireball extends Entity {
-    private final double DAMAGE = Double.parseDouble(APP_PROPERTIES.getProperty("gameObjects.fireball.damageSize"));
-    private static final double RADIUS = Double.parseDouble(APP_PROPERTIES.getProperty("gameObjects.fireball.radius"));
+    private final double DAMAGE;
     private boolean goingRight;
     private boolean thrownByPlayer;
-    private static int shootingSpeed = Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.fireball.speed"));
+    private final int SHOOTING_SPEED;
+    private final int POOL_INDEX;
 
     /**
      * Get how much damage the fireball deals.
@@ -32,8 +36,8 @@ public class Fireball extends Entity {
      * Get how fast the fireball is thrown.
      * @return How fast the fireball is thrown.
      */
-    public static int getShootingSpeed() {
-        return shootingSpeed;
+    public int getShootingSpeed() {
+        return SHOOTING_SPEED;
     }
 
     /**
@@ -44,17 +48,70 @@ public class Fireball extends Entity {
         return thrownByPlayer;
     }
 
+    /**
+     * Get the fireball's place in the pool it was made for, so it can be returned without searching the pool.
+     * @return The fireball's place in its pool.
+     */
+    public int getPoolIndex() {
+        return POOL_INDEX;
+    }
+
+    /**
+     * Reuse the fireball for a new throw.
+     * @param x The x coordinate the fireball is thrown from.
+     * @param y The y coordinate the fireball is thrown from.
+     * @param goingRight The direction of the fireball along the x-axis.
+     * @param thrownByPlayer Whether the fireball was thrown by the player.
+     */
+    public void reset(int x, int y, boolean goingRight, boolean thrownByPlayer) {
+        setX(x);
+        setY(y);
+        savePosition();
+        this.goingRight = goingRight;
+        this.thrownByPlayer = thrownByPlayer;
+    }
+
+    /**
+     * Write the fireball's position, direction and thrower.
+     * @param out Where to write the fireball's state.
+     * @throws IOException If the state can't be written.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeBoolean(goingRight);
+        out.writeBoolean(thrownByPlayer);
+    }
+
+    /**
+     * Read back the fireball's state, as written by writeState.
+     * @param in Where to read the fireball's state from.
+     * @throws IOException If the state can't be read.
+     */
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        goingRight = in.readBoolean();
+        thrownByPlayer = in.readBoolean();
+    }
+
     /**
      * Default constructor for fireball.
+     * @param store The store which holds the fireball's position and movement.
+     * @param config The game's settings.
      * @param x The initial x coordinate of the fireball.
      * @param y The initial y coordinate of the fireball.
      * @param goingRight The initial direction of the fireball along the x-axis.
      * @param thrownByPlayer Whether the fireball was thrown by the player.
+     * @param poolIndex The fireball's place in the pool it was made for.
      */
-    public Fireball(int x, int y, boolean goingRight, boolean thrownByPlayer) {
-        super(x, y, new Image(APP_PROPERTIES.getProperty("gameObjects.fireball.image")), RADIUS,
-                Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.coin.speed")), 0);
+    public Fireball(EntityStore store, GameConfig config, int x, int y, boolean goingRight, boolean thrownByPlayer,
+                    int poolIndex) {
+        super(store, x, y, config.FIREBALL.IMAGE, config.FIREBALL.RADIUS, 0);
+        DAMAGE = config.FIREBALL.DAMAGE;
+        SHOOTING_SPEED = config.FIREBALL.SPEED;
         this.goingRight = goingRight;
         this.thrownByPlayer = thrownByPlayer;
+        POOL_INDEX = poolIndex;
     }
 }
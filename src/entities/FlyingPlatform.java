@@ -1,29 +1,44 @@
 package entities;
 
-import bagel.Image;
+import main.GameConfig;
+
+import java.util.SplittableRandom;
 
 /**
  * Flying platforms appear in levels 2 and 3. The player can land on them.
  */
 public class FlyingPlatform extends RandomMovementEntity {
+    private final int HALF_LENGTH;
+    private final int HALF_HEIGHT;
+
     /**
-     * A flying platform's half length.
+     * Get the flying platform's half length.
+     * @return The flying platform's half length.
      */
-    protected static final int HALF_LENGTH = Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.flyingPlatform.halfLength"));
+    public int getHalfLength() {
+        return HALF_LENGTH;
+    }
+
     /**
-     * A flying platform's half height.
+     * Get the flying platform's half height.
+     * @return The flying platform's half height.
      */
-    protected static final int HALF_HEIGHT = Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.flyingPlatform.halfHeight"));
+    public int getHalfHeight() {
+        return HALF_HEIGHT;
+    }
 
     /**
      * Default constructor for flying platform.
+     * @param store The store which holds the flying platform's position and movement.
+     * @param config The game's settings.
      * @param x The initial x coordinate of the flying platform.
      * @param y The initial y coordinate of the flying platform.
+     * @param random Decides which direction the flying platform starts moving in.
      */
-    public FlyingPlatform(int x, int y) {
-        super(x, y, new Image(APP_PROPERTIES.getProperty("gameObjects.flyingPlatform.image")), 0,
-                Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.flyingPlatform.speed")), 0,
-                Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.flyingPlatform.randomSpeed")),
-                Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.flyingPlatform.maxRandomDisplacementX")));
+    public FlyingPlatform(EntityStore store, GameConfig config, int x, int y, SplittableRandom random) {
+        super(store, x, y, config.FLYING_PLATFORM.IMAGE, 0, 0,
+                config.FLYING_PLATFORM.RANDOM_SPEED, config.FLYING_PLATFORM.MAX_RANDOM_DISPLACEMENT_X, random);
+        HALF_LENGTH = config.FLYING_PLATFORM_HALF_LENGTH;
+        HALF_HEIGHT = config.FLYING_PLATFORM_HALF_HEIGHT;
     }
 }
@@ -1,6 +1,7 @@
 package entities;
 
-import bagel.*;
+import main.GameConfig;
+
 /**
  * Class for representing platform in game.
  */
@@ -12,14 +13,15 @@ public class Platform extends Entity {
 
     /**
      * Default constructor for the platform.
+     * @param store The store which holds the platform's position and movement.
+     * @param config The game's settings.
      * @param x The initial x coordinate of the platform.
      * @param y The initial y coordinate of the platform.
      */
-    public Platform(int x, int y) {
-        super(x, y,
-            new Image(APP_PROPERTIES.getProperty("gameObjects.platform.image")),
+    public Platform(EntityStore store, GameConfig config, int x, int y) {
+        super(store, x, y,
+            config.PLATFORM.IMAGE,
             0,
-            Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.platform.speed")),
             0);
     }
 }
@@ -0,0 +1,117 @@
+package entities;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Flying platforms sorted by height, so the platforms the player could land on can be found without checking
+ * every platform in the level.
+ * Flying platforms only move along the x-axis, so the order never goes out of date while a platform is in the index.
+ */
+public class PlatformIndex {
+    /**
+     * Returned when there is no platform in the range searched.
+     */
+    public static final int NONE = Integer.MAX_VALUE;
+    private FlyingPlatform[] platforms = new FlyingPlatform[16];
+    private int[] tops = new int[16];
+    private int size = 0;
+
+    /**
+     * Get how many platforms are in the index.
+     * @return How many platforms are in the index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add a platform to the index.
+     * @param f The platform to add.
+     */
+    public void add(FlyingPlatform f) {
+        if (size == platforms.length) {
+            platforms = Arrays.copyOf(platforms, size * 2);
+            tops = Arrays.copyOf(tops, size * 2);
+        }
+        int top = topOf(f);
+        int i = firstWithTopAtLeast(top + 1);
+        System.arraycopy(platforms, i, platforms, i + 1, size - i);
+        System.arraycopy(tops, i, tops, i + 1, size - i);
+        platforms[i] = f;
+        tops[i] = top;
+        size++;
+    }
+
+    /**
+     * Remove a platform from the index, if it is in the index.
+     * @param f The platform to remove.
+     */
+    public void remove(FlyingPlatform f) {
+        int top = topOf(f);
+        for (int i = firstWithTopAtLeast(top); i < size && tops[i] == top; i++) {
+            if (platforms[i] == f) {
+                System.arraycopy(platforms, i + 1, platforms, i, size - i - 1);
+                System.arraycopy(tops, i + 1, tops, i, size - i - 1);
+                platforms[--size] = null;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Find the first platform top, between two heights, which is underneath a point on the x-axis.
+     * @param x The x coordinate to look under.
+     * @param minTop The smallest y coordinate a platform's top may have.
+     * @param maxTop The largest y coordinate a platform's top may have.
+     * @return The smallest y coordinate of a matching platform's top, or NONE if there is no such platform.
+     */
+    public int firstTopBetween(int x, int minTop, int maxTop) {
+        for (int i = firstWithTopAtLeast(minTop); i < size && tops[i] <= maxTop; i++) {
+            if (Math.abs(x - platforms[i].getX()) < platforms[i].getHalfLength()) {
+                return tops[i];
+            }
+        }
+        return NONE;
+    }
+
+    private int firstWithTopAtLeast(int y) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tops[mid] < y) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int topOf(FlyingPlatform f) {
+        return f.getY() - f.getHalfHeight();
+    }
+
+    /**
+     * Default constructor for the platform index.
+     * @param flyingPlatforms The flying platforms to start the index with.
+     */
+    public PlatformIndex(List<FlyingPlatform> flyingPlatforms) {
+        size = flyingPlatforms.size();
+        platforms = flyingPlatforms.toArray(new FlyingPlatform[Math.max(size, 16)]);
+        Arrays.sort(platforms, 0, size, Comparator.comparingInt(PlatformIndex::topOf));
+        tops = new int[platforms.length];
+        for (int i = 0; i < size; i++) {
+            tops[i] = topOf(platforms[i]);
+        }
+    }
+
+    /**
+     * Constructor for an empty platform index.
+     */
+    public PlatformIndex() {
+    }
+}
@@ -2,8 +2,12 @@ package entities;
 
 import bagel.*;
 import entities.collectibles.Collectible;
+import main.Assets;
+import main.GameConfig;
 
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * Class to represent player entity in game.
@@ -11,12 +15,13 @@ import java.util.ArrayList;
  * The player also has health and the ability to jump.
  */
 public class Player extends Entity implements Damageable {
-    private static final double RADIUS = Double.parseDouble(APP_PROPERTIES.getProperty("gameObjects.player.radius"));
-    private final Image RIGHT_IMAGE = new Image(APP_PROPERTIES.getProperty("gameObjects.player.imageRight"));
-    private final Image LEFT_IMAGE = new Image(APP_PROPERTIES.getProperty("gameObjects.player.imageLeft"));
-    private final double INITIAL_HEALTH = Double.parseDouble(APP_PROPERTIES.getProperty("gameObjects.player.health"));
+    private final String RIGHT_IMAGE_PATH;
+    private final String LEFT_IMAGE_PATH;
+    private final Image RIGHT_IMAGE;
+    private final Image LEFT_IMAGE;
     private final int JUMP_SPEED_CAP = 20;
-    private double health = INITIAL_HEALTH;
+    private static final int NEVER = Integer.MAX_VALUE;
+    private double health;
     private boolean facingRight = true;
     private boolean isJumping = false;
     private boolean isInvincible = false;
@@ -104,6 +109,40 @@ public class Player extends Entity implements Damageable {
         this.health = health;
     }
 
+    /**
+     * Write the player's position, health, score and jump.
+     * @param out Where to write the player's state.
+     * @throws IOException If the state can't be written.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeDouble(health);
+        out.writeBoolean(facingRight);
+        out.writeBoolean(isJumping);
+        out.writeBoolean(isInvincible);
+        out.writeInt(score);
+        out.writeInt(scoreMultiplier);
+        out.writeInt(distanceFromFloor);
+    }
+
+    /**
+     * Read back the player's state, as written by writeState.
+     * @param in Where to read the player's state from.
+     * @throws IOException If the state can't be read.
+     */
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        health = in.readDouble();
+        facingRight = in.readBoolean();
+        isJumping = in.readBoolean();
+        isInvincible = in.readBoolean();
+        score = in.readInt();
+        scoreMultiplier = in.readInt();
+        distanceFromFloor = in.readInt();
+    }
+
     /**
      * Get the image suitable for the direction that the player is facing.
      * @return The player's image, facing either left or right dependent on their current direction.
@@ -119,16 +158,13 @@ public class Player extends Entity implements Damageable {
     }
 
     /**
-     * Draw the player facing the correct direction.
+     * Release the player's images back to the shared asset registry.
      */
     @Override
-    public void draw() {
-        if (facingRight) {
-            RIGHT_IMAGE.draw(x, y);
-        }
-        else {
-            LEFT_IMAGE.draw(x, y);
-        }
+    public void dispose() {
+        super.dispose();
+        Assets.releaseImage(RIGHT_IMAGE_PATH);
+        Assets.releaseImage(LEFT_IMAGE_PATH);
     }
 
     /**
@@ -153,62 +189,67 @@ public class Player extends Entity implements Damageable {
      */
     public void startJumping() {
         isJumping = true;
-        speedY = -JUMP_SPEED_CAP;
+        setSpeedY(-JUMP_SPEED_CAP);
     }
 
     /**
      * Update the player's y-level, depending on the stage of their jump.
      */
     public void jump() {
-        // Incrementing the player's y value by one ensures you don't miss any platform collisions
-        for (int i = 0; i < Math.abs(speedY); i++) {
-            if (speedY < 0) {
-                moveY(true, 1);
-                distanceFromFloor--;
-            }
-            else {
-                moveY(false, 1);
-                distanceFromFloor++;
-            }
-            // Check if player has landed on the ground
-            if (distanceFromFloor >= 0) {
-                speedY = -JUMP_SPEED_CAP;
-                stopJumping();
-                return;
-            }
-        }
-        speedY++;
+        jump(null);
     }
 
     /**
      * Update the player's y-level, depending on the stage of their jump.
-     * @param flyingPlatforms All flying platforms in the level.
+     * Rather than moving a pixel at a time, this works out the first pixel of this frame's movement at which the
+     * player reaches the ground or the top of a flying platform, and moves straight there.
+     * @param flyingPlatforms All flying platforms in the level, or null if there are none.
      */
-    public void jump(ArrayList<FlyingPlatform> flyingPlatforms) {
-        // Incrementing the player's y value by one ensures you don't miss any platform collisions
-        for (int i = 0; i < Math.abs(speedY); i++) {
-            if (speedY < 0) {
-                moveY(true, 1);
-                distanceFromFloor--;
-            }
-            else {
-                moveY(false, 1);
-                distanceFromFloor++;
-            }
-            // Check if player has landed on the ground
-            if (distanceFromFloor >= 0) {
-                speedY = -JUMP_SPEED_CAP;
-                stopJumping();
-                return;
+    public void jump(PlatformIndex flyingPlatforms) {
+        int speedY = getSpeedY();
+        int steps = Math.abs(speedY);
+        int floorStep = NEVER;
+        if (speedY < 0 && distanceFromFloor >= 1) {
+            floorStep = 1;
+        }
+        else if (speedY > 0) {
+            floorStep = Math.max(1, -distanceFromFloor);
+        }
+        // Platforms only catch the player while they're falling faster than one pixel a frame
+        int platformStep = NEVER;
+        if (speedY > 1 && flyingPlatforms != null) {
+            int top = flyingPlatforms.firstTopBetween(getX(), getY(), getY() + steps);
+            if (top != PlatformIndex.NONE) {
+                platformStep = Math.max(1, top - getY());
             }
-            // Check if player has landed on a flying platform
-            if (speedY > 1 && landedOnFlyingPlatform(flyingPlatforms)) {
-                stopJumping();
-                speedY = 0;
-                return;
-            };
         }
-        speedY++;
+
+        // The ground is checked before platforms, so it wins if both are reached on the same pixel
+        if (floorStep <= steps && floorStep <= platformStep) {
+            moveSteps(floorStep);
+            setSpeedY(-JUMP_SPEED_CAP);
+            stopJumping();
+        }
+        else if (platformStep <= steps) {
+            moveSteps(platformStep);
+            stopJumping();
+            setSpeedY(0);
+        }
+        else {
+            moveSteps(steps);
+            setSpeedY(speedY + 1);
+        }
+    }
+
+    private void moveSteps(int steps) {
+        if (getSpeedY() < 0) {
+            moveY(true, steps);
+            distanceFromFloor -= steps;
+        }
+        else {
+            moveY(false, steps);
+            distanceFromFloor += steps;
+        }
     }
 
     /**
@@ -223,7 +264,7 @@ public class Player extends Entity implements Damageable {
      * @param flyingPlatforms All flying platforms in the level.
      * @return Whether the player has just walked off the edge of a flying platform.
      */
-    public boolean walkedOffEdge(ArrayList<FlyingPlatform> flyingPlatforms) {
+    public boolean walkedOffEdge(PlatformIndex flyingPlatforms) {
         return distanceFromFloor < 0 && !landedOnFlyingPlatform(flyingPlatforms) && !isJumping;
     }
 
@@ -240,16 +281,9 @@ public class Player extends Entity implements Damageable {
      * @param flyingPlatforms All flying platforms in the player's current level.
      * @return Whether the player has landed on any flying platform.
      */
-    public boolean landedOnFlyingPlatform(ArrayList<FlyingPlatform> flyingPlatforms) {
-        for (FlyingPlatform f: flyingPlatforms) {
-            if (Math.abs(x - f.getX()) < f.HALF_LENGTH
-                && f.getY() - y <= f.HALF_HEIGHT
-                && f.getY() - y  >= f.HALF_HEIGHT - 1
-            ) {
-                return true;
-            }
-        }
-        return false;
+    public boolean landedOnFlyingPlatform(PlatformIndex flyingPlatforms) {
+        // The player is on a platform if its top is at their y coordinate or the pixel above
+        return flyingPlatforms.firstTopBetween(getX(), getY() - 1, getY()) != PlatformIndex.NONE;
     }
 
     /**
@@ -279,15 +313,22 @@ public class Player extends Entity implements Damageable {
      * @return True if player is within collision range and if the player has not already collected this item.
      */
     public boolean collidedWith(Collectible c) {
-        return euclideanDistance(c) < collisionRange(c) && !c.isCollected();
+        return !c.isCollected() && collidesWith(c);
     }
 
     /**
      * Default constructor for a player.
+     * @param store The store which holds the player's position and movement.
+     * @param config The game's settings.
      * @param x The player's initial x coordinate.
      * @param y The player's initial y coordinate.
      */
-    public Player(int x, int y) {
-        super(x, y, new Image(APP_PROPERTIES.getProperty("gameObjects.player.imageRight")), RADIUS, 0, -20);
+    public Player(EntityStore store, GameConfig config, int x, int y) {
+        super(store, x, y, config.PLAYER.IMAGE, config.PLAYER.RADIUS, -20);
+        RIGHT_IMAGE_PATH = config.PLAYER.IMAGE;
+        LEFT_IMAGE_PATH = config.PLAYER_LEFT_IMAGE;
+        RIGHT_IMAGE = Assets.acquireImage(RIGHT_IMAGE_PATH);
+        LEFT_IMAGE = Assets.acquireImage(LEFT_IMAGE_PATH);
+        health = config.PLAYER.HEALTH;
     }
 }
@@ -1,50 +1,49 @@
 package entities;
 
-import bagel.Image;
-
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * An abstract class for any entity which moves randomly.
  * Used for enemies and flying platforms.
  */
 public abstract class RandomMovementEntity extends Entity {
-    private int randomSpeedX;
-    private int maxRandomDisplacementX;
-    private int framesMoved = 0;
-    private boolean facingRight;
-
     /**
      * Randomly move the entity along the x-axis.
      */
     public void randomlyMoveX() {
-        moveX(facingRight, randomSpeedX);
-        if (framesMoved >= maxRandomDisplacementX) {
-            framesMoved = 0;
-            facingRight = !facingRight;
-        }
-        else {
-            framesMoved += randomSpeedX;
-        }
+        STORE.moveRandomly(HANDLE);
+    }
+
+    /**
+     * Move the entity to where it would be had it been moving randomly for a number of ticks.
+     * The movement repeats once the entity has gone back and forth, so at most one cycle is simulated.
+     * @param ticks How many ticks the entity should have been moving for.
+     */
+    public void fastForward(int ticks) {
+        STORE.fastForward(HANDLE, ticks);
+        savePosition();
     }
 
     /**
      * Default constructor for RandomMovementEntity.
+     * @param store The store which holds the RandomMovementEntity's position and movement.
      * @param x Initial x coordinate for RandomMovementEntity.
      * @param y Initial y coordinate for RandomMovementEntity.
-     * @param image Default image for RandomMovementEntity.
+     * @param imagePath Path to the default image for RandomMovementEntity.
      * @param radius Collision radius for RandomMovementEntity.
-     * @param speedX The speed along the x-axis of the RandomMovementEntity.
      * @param speedY The speed along the y-axis of the RandomMovementEntity.
      * @param randomSpeedX How fast the RandomMovementEntity randomly moves along the x-axis.
      * @param maxRandomDisplacementX The maximum distance a RandomMovementEntity can move from its starting position.
+     * @param random Decides which direction the RandomMovementEntity starts moving in.
      */
-    public RandomMovementEntity(int x, int y, Image image, double radius, int speedX, int speedY,
-                                int randomSpeedX, int maxRandomDisplacementX) {
-        super(x, y, image, radius, speedX, speedY);
-        Random r = new Random();
-        facingRight = r.nextBoolean();
-        this.randomSpeedX = randomSpeedX;
-        this.maxRandomDisplacementX = maxRandomDisplacementX;
+    public RandomMovementEntity(EntityStore store, int x, int y, String imagePath, double radius, int speedY,
+                                int randomSpeedX, int maxRandomDisplacementX, SplittableRandom random) {
+        super(store, x, y, imagePath, radius, speedY);
+        store.startMovingRandomly(HANDLE);
+        if (random.nextBoolean()) {
+            store.flags[HANDLE] |= EntityStore.FACING_RIGHT;
+        }
+        store.randomSpeeds[HANDLE] = randomSpeedX;
+        store.maxRandomDisplacements[HANDLE] = maxRandomDisplacementX;
     }
 }
@@ -1,16 +1,14 @@
 package entities.collectibles;
 
-import bagel.*;
-import entities.Entity;
+import entities.EntityStore;
+import main.GameConfig;
 
 /**
  * Class to represent coins in game.
  * Coins can be collected by the player. They have an assigned value.
  */
 public class Coin extends Collectible {
-    private final int VALUE = Integer.parseInt(Entity.APP_PROPERTIES.getProperty("gameObjects.coin.value"));
-
-    private final static double RADIUS = Double.parseDouble(Entity.APP_PROPERTIES.getProperty("gameObjects.coin.radius"));
+    private final int VALUE;
 
     /**
      * Get the coin's value.
@@ -22,11 +20,13 @@ public class Coin extends Collectible {
 
     /**
      * Default constructor for coin.
+     * @param store The store which holds the coin's position and movement.
+     * @param config The game's settings.
      * @param x The coin's initial x coordinate.
      * @param y The coin's initial y coordinate.
      */
-    public Coin(int x, int y) {
-        super(x, y, new Image(Entity.APP_PROPERTIES.getProperty("gameObjects.coin.image")), RADIUS,
-                Integer.parseInt(Entity.APP_PROPERTIES.getProperty("gameObjects.coin.speed")));
+    public Coin(EntityStore store, GameConfig config, int x, int y) {
+        super(store, x, y, config.COIN.IMAGE, config.COIN.RADIUS);
+        VALUE = config.COIN.VALUE;
     }
 }
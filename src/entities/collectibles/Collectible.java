@@ -1,7 +1,11 @@
 package entities.collectibles;
 
-import bagel.Image;
 import entities.Entity;
+import entities.EntityStore;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * A class for any object which can be collected by the player.
@@ -40,16 +44,38 @@ public abstract class Collectible extends Entity {
         return getY() < -getRadius();
     }
 
+    /**
+     * Write the collectible's position, and whether it has been collected.
+     * @param out Where to write the collectible's state.
+     * @throws IOException If the state can't be written.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeBoolean(collected);
+    }
+
+    /**
+     * Read back the collectible's state, as written by writeState.
+     * @param in Where to read the collectible's state from.
+     * @throws IOException If the state can't be read.
+     */
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        collected = in.readBoolean();
+    }
+
     /**
      * Default constructor for collectible entity.
+     * @param store The store which holds the collectible's position and movement.
      * @param x The initial x coordinate for the collectible.
      * @param y The initial y coordinate for the collectible.
-     * @param image The default image the collectible uses.
+     * @param imagePath The path to the default image the collectible uses.
      * @param radius The collision radius of the collectible.
-     * @param speedX The speed the collectible travels along the x coordinate.
      */
-    public Collectible(int x, int y, Image image, double radius, int speedX) {
+    public Collectible(EntityStore store, int x, int y, String imagePath, double radius) {
         // When collected, all collectibles move off the screen at a speed of 10 pixels per second
-        super(x, y, image, radius, speedX, 10);
+        super(store, x, y, imagePath, radius, 10);
     }
 }
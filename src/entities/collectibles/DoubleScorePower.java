@@ -1,12 +1,12 @@
 package entities.collectibles;
 
-import bagel.Image;
+import entities.EntityStore;
+import main.GameConfig;
 
 /**
  * A Collectible PowerUp which doubles the player's score by 2 for a certain amount of time.
  */
 public class DoubleScorePower extends PowerUp {
-    private static double RADIUS = Double.parseDouble(APP_PROPERTIES.getProperty("gameObjects.doubleScore.radius"));
     private static int SCORE_MULTIPLIER = 2;
 
     /**
@@ -19,12 +19,13 @@ public class DoubleScorePower extends PowerUp {
 
     /**
      * Default constructor for DoubleScorePower.
+     * @param store The store which holds the powerup's position and movement.
+     * @param config The game's settings.
      * @param x The initial coordinate for the DoubleScorePower.
      * @param y The initial coordinate for the DoubleScorePower.
      */
-    public DoubleScorePower(int x, int y) {
-        super(Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.doubleScore.maxFrames")), x, y,
-                new Image(APP_PROPERTIES.getProperty("gameObjects.doubleScore.image")),
-                RADIUS, Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.doubleScore.speed")));
+    public DoubleScorePower(EntityStore store, GameConfig config, int x, int y) {
+        super(store, config.DOUBLE_SCORE.MAX_FRAMES, x, y, config.DOUBLE_SCORE.IMAGE,
+                config.DOUBLE_SCORE.RADIUS);
     }
 }
@@ -1,21 +1,22 @@
 package entities.collectibles;
 
-import bagel.Image;
+import entities.EntityStore;
+import main.GameConfig;
 
 /**
  * A Collectible PowerUp which makes the player invincible for a certain amount of time.
  */
 public class InvinciblePower extends PowerUp {
-    private static double RADIUS = Double.parseDouble(APP_PROPERTIES.getProperty("gameObjects.invinciblePower.radius"));
 
     /**
      * Default constructor for InvinciblePower.
+     * @param store The store which holds the powerup's position and movement.
+     * @param config The game's settings.
      * @param x The initial coordinate for the InvinciblePower.
      * @param y The initial coordinate for the InvinciblePower.
      */
-    public InvinciblePower(int x, int y) {
-        super(Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.invinciblePower.maxFrames")), x, y,
-                new Image(APP_PROPERTIES.getProperty("gameObjects.invinciblePower.image")),
-                RADIUS, Integer.parseInt(APP_PROPERTIES.getProperty("gameObjects.invinciblePower.speed")));
+    public InvinciblePower(EntityStore store, GameConfig config, int x, int y) {
+        super(store, config.INVINCIBLE_POWER.MAX_FRAMES, x, y, config.INVINCIBLE_POWER.IMAGE,
+                config.INVINCIBLE_POWER.RADIUS);
     }
 }
@@ -1,6 +1,6 @@
 package entities.collectibles;
 
-import bagel.Image;
+import entities.EntityStore;
 
 /** Abstract implementation of a powerup which can be collected by the player.
  *
@@ -26,15 +26,15 @@ public abstract class PowerUp extends Collectible {
 
     /**
      * Default constructor for a powerup.
+     * @param store The store which holds the powerup's position and movement.
      * @param duration How long the powerup should last.
      * @param x The initial x coordinate of the powerup.
      * @param y The initial y coordinate of the powerup.
-     * @param image The default image of the powerup.
+     * @param imagePath The path to the default image of the powerup.
      * @param radius The collision radius of the powerup.
-     * @param speedX How quickly the powerup moves along the x-axis.
      */
-    public PowerUp(int duration, int x, int y, Image image, double radius, int speedX) {
-        super(x, y, image, radius, speedX);
+    public PowerUp(EntityStore store, int duration, int x, int y, String imagePath, double radius) {
+        super(store, x, y, imagePath, radius);
         this.duration = duration;
     }
 
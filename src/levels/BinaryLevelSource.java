@@ -0,0 +1,222 @@
+package levels;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A level read from a compiled level file, which is memory-mapped rather than parsed.
+ * <p>
+ * A compiled level file is a header, a list of permanent records, an index and a list of records, all made of
+ * big-endian ints:
+ * <ul>
+ *     <li>the header: MAGIC, VERSION, the number of records, the index's chunk width, the first chunk in the index,
+ *     the number of chunks in the index and the number of permanent records;</li>
+ *     <li>the permanent records: the position of each record which isn't streamed, in x order, so the entities
+ *     which exist for the whole level can be created without reading every record;</li>
+ *     <li>the index: for each chunk, the first record at or to the right of the chunk's left edge;</li>
+ *     <li>the records: the entity type's tag, x and y of each entity, sorted by x.</li>
+ * </ul>
+ * Compiled level files are made from CSV level files with LevelCompiler.
+ * <p>
+ * Loading only checks the header, the permanent records and the order of the index, so the records are read from
+ * disk as the level reaches them. A record with an unknown type, or records out of order around a chunk's index
+ * entry, are found when the level reaches them, and throw an IllegalStateException.
+ */
+public class BinaryLevelSource implements LevelSource {
+    /**
+     * The first four bytes of every compiled level file, "SMLV".
+     */
+    public static final int MAGIC = 0x534D4C56;
+    /**
+     * The version of the compiled level format which this class reads and writes.
+     */
+    public static final int VERSION = 2;
+    /**
+     * The file extension of compiled level files.
+     */
+    public static final String EXTENSION = ".lvl";
+    private static final int HEADER_BYTES = 7 * Integer.BYTES;
+    private static final int RECORD_BYTES = 3 * Integer.BYTES;
+    private static final EntityType[] TYPES = EntityType.values();
+
+    private final ByteBuffer buffer;
+    private final String LEVEL_FILE;
+    private final int SIZE;
+    private final int CHUNK_WIDTH;
+    private final int FIRST_CHUNK;
+    private final int CHUNK_COUNT;
+    private final int PERMANENT_COUNT;
+    private final int INDEX_START;
+    private final int RECORDS_START;
+
+    @Override
+    public int size() {
+        return SIZE;
+    }
+
+    @Override
+    public EntityType getType(int index) {
+        int tag = buffer.getInt(RECORDS_START + index * RECORD_BYTES);
+        if (tag < 0 || tag >= TYPES.length) {
+            throw new IllegalStateException(LEVEL_FILE + " has an unknown entity type " + tag + " in record " + index);
+        }
+        return TYPES[tag];
+    }
+
+    @Override
+    public int getX(int index) {
+        return buffer.getInt(RECORDS_START + index * RECORD_BYTES + Integer.BYTES);
+    }
+
+    @Override
+    public int getY(int index) {
+        return buffer.getInt(RECORDS_START + index * RECORD_BYTES + 2 * Integer.BYTES);
+    }
+
+    @Override
+    public int getPermanentCount() {
+        return PERMANENT_COUNT;
+    }
+
+    @Override
+    public int getPermanentRecord(int i) {
+        return buffer.getInt(HEADER_BYTES + i * Integer.BYTES);
+    }
+
+    /**
+     * Find the first entity at or to the right of an x coordinate, using the index to skip to the right chunk.
+     * @param x The x coordinate to search from.
+     * @return The index of the first entity whose x coordinate is at least x, or size() if there is none.
+     * @throws IllegalStateException If the records near x aren't sorted by x, or don't match the index.
+     */
+    @Override
+    public int firstAtOrAfter(int x) {
+        int chunk = Math.floorDiv(x, CHUNK_WIDTH) - FIRST_CHUNK;
+        if (chunk < 0) {
+            return 0;
+        }
+        if (chunk >= CHUNK_COUNT) {
+            return SIZE;
+        }
+        int i = buffer.getInt(INDEX_START + chunk * Integer.BYTES);
+        // The entry must not skip any record in its chunk, and the records walked past must be in order
+        if (i > 0 && getX(i - 1) >= (chunk + FIRST_CHUNK) * CHUNK_WIDTH) {
+            throw new IllegalStateException(LEVEL_FILE + " has an index entry " + i + " past records in its chunk");
+        }
+        while (i < SIZE && getX(i) < x) {
+            i++;
+            if (i < SIZE && getX(i) < getX(i - 1)) {
+                throw new IllegalStateException(LEVEL_FILE + " has records which aren't sorted by x at " + i);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * Write a compiled level file.
+     * @param source The entities to write, which must be sorted by x.
+     * @param file Where to write the compiled level file.
+     * @param chunkWidth The width of each chunk in the file's index, which must be positive.
+     * @throws IOException If the file couldn't be written.
+     * @throws IllegalArgumentException If the chunk width isn't positive.
+     */
+    public static void write(LevelSource source, Path file, int chunkWidth) throws IOException {
+        if (chunkWidth <= 0) {
+            throw new IllegalArgumentException("The chunk width should be at least 1, not " + chunkWidth);
+        }
+        int size = source.size();
+        int firstChunk = size == 0 ? 0 : Math.floorDiv(source.getX(0), chunkWidth);
+        int lastChunk = size == 0 ? -1 : Math.floorDiv(source.getX(size - 1), chunkWidth);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            out.writeInt(chunkWidth);
+            out.writeInt(firstChunk);
+            out.writeInt(lastChunk - firstChunk + 1);
+            out.writeInt(source.getPermanentCount());
+            for (int i = 0; i < source.getPermanentCount(); i++) {
+                out.writeInt(source.getPermanentRecord(i));
+            }
+            int record = 0;
+            for (int chunk = firstChunk; chunk <= lastChunk; chunk++) {
+                while (record < size && source.getX(record) < chunk * chunkWidth) {
+                    record++;
+                }
+                out.writeInt(record);
+            }
+            for (int i = 0; i < size; i++) {
+                out.writeInt(source.getType(i).ordinal());
+                out.writeInt(source.getX(i));
+                out.writeInt(source.getY(i));
+            }
+        }
+    }
+
+    /**
+     * Default constructor for a compiled level source.
+     * @param levelFile The path to the compiled level file.
+     */
+    public BinaryLevelSource(String levelFile) {
+        LEVEL_FILE = levelFile;
+        try (FileChannel channel = FileChannel.open(Paths.get(levelFile), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Couldn't read level file " + levelFile, e);
+        }
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException(levelFile + " is not a compiled level file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException(levelFile + " is compiled level format version " + buffer.getInt(4)
+                    + ", but only version " + VERSION + " is supported");
+        }
+        SIZE = buffer.getInt(8);
+        CHUNK_WIDTH = buffer.getInt(12);
+        FIRST_CHUNK = buffer.getInt(16);
+        CHUNK_COUNT = buffer.getInt(20);
+        PERMANENT_COUNT = buffer.getInt(24);
+        if (SIZE < 0 || CHUNK_WIDTH <= 0 || CHUNK_COUNT < 0 || PERMANENT_COUNT < 0 || PERMANENT_COUNT > SIZE) {
+            throw new IllegalArgumentException(levelFile + " has a corrupt header");
+        }
+        long indexStart = HEADER_BYTES + (long) PERMANENT_COUNT * Integer.BYTES;
+        long recordsStart = indexStart + (long) CHUNK_COUNT * Integer.BYTES;
+        if (buffer.capacity() != recordsStart + (long) SIZE * RECORD_BYTES) {
+            throw new IllegalArgumentException(levelFile + " is truncated or corrupt");
+        }
+        INDEX_START = (int) indexStart;
+        RECORDS_START = (int) recordsStart;
+        for (int i = 0; i < PERMANENT_COUNT; i++) {
+            int record = getPermanentRecord(i);
+            if (record < 0 || record >= SIZE || (i > 0 && record <= getPermanentRecord(i - 1))) {
+                throw new IllegalArgumentException(levelFile + " has a permanent record " + record
+                        + " which is out of order or outside its " + SIZE + " records");
+            }
+        }
+        int previous = 0;
+        for (int chunk = 0; chunk < CHUNK_COUNT; chunk++) {
+            int first = buffer.getInt(INDEX_START + chunk * Integer.BYTES);
+            if (first < previous || first > SIZE) {
+                throw new IllegalArgumentException(levelFile + " has an index entry " + first + " which is out of "
+                        + "order or outside its " + SIZE + " records");
+            }
+            previous = first;
+        }
+        for (int i = 0; i < PERMANENT_COUNT; i++) {
+            int tag = buffer.getInt(RECORDS_START + getPermanentRecord(i) * RECORD_BYTES);
+            if (tag < 0 || tag >= TYPES.length || TYPES[tag].isStreamed()) {
+                throw new IllegalArgumentException(levelFile + " lists record " + getPermanentRecord(i)
+                        + " as permanent, but it isn't a permanent entity");
+            }
+        }
+    }
+}
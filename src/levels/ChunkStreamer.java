@@ -0,0 +1,252 @@
+package levels;
+
+import entities.Enemy;
+import entities.Entity;
+import entities.collectibles.Collectible;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+
+/**
+ * Loads a level's entities a chunk at a time as the camera nears them, and unloads them once the camera is well
+ * past them, so the number of entities created depends on the size of the screen rather than the level.
+ * Chunks are fixed-width strips along the x-axis. Collected items stay collected, and enemies which have already
+ * damaged the player stay harmless, when their chunk is unloaded and loaded again.
+ * This doesn't bound the memory a level uses. What has happened to each record is kept in two bit sets over the
+ * whole level file, so they grow to about a quarter of a byte per record as the player gets further along, and the
+ * source keeps every record too unless it is a compiled level file.
+ */
+public class ChunkStreamer {
+    private final Level level;
+    private final LevelSource source;
+    private final int CHUNK_WIDTH;
+    private final int LOAD_MARGIN;
+    private final int UNLOAD_MARGIN;
+    private final HashMap<Integer, Chunk> loaded = new HashMap<>();
+    private final BitSet consumed = new BitSet();
+    private final BitSet damagedPlayer = new BitSet();
+    private int firstWanted = 1;
+    private int lastWanted = 0;
+    // How each record in a loaded chunk is saved
+    private static final int NOT_SPAWNED = 0;
+    private static final int SPAWNED = 1;
+    private static final int REMOVED = 2;
+
+    /**
+     * The entities created from one strip of the level file.
+     */
+    private static class Chunk {
+        private final int firstRecord;
+        private final Entity[] entities;
+
+        private Chunk(int firstRecord, Entity[] entities) {
+            this.firstRecord = firstRecord;
+            this.entities = entities;
+        }
+    }
+
+    /**
+     * Get how many chunks are currently loaded.
+     * @return How many chunks are currently loaded.
+     */
+    public int getLoadedChunkCount() {
+        return loaded.size();
+    }
+
+    /**
+     * Create the entities which exist for the whole level, such as the player and the end flag.
+     */
+    public void loadPermanentEntities() {
+        for (int i = 0; i < source.getPermanentCount(); i++) {
+            int record = source.getPermanentRecord(i);
+            level.spawn(source.getType(record), record, source.getX(record), source.getY(record));
+        }
+    }
+
+    /**
+     * Load the chunks near the visible area, and unload the chunks far away from it.
+     * Does nothing unless the camera has moved into a different chunk.
+     * @param left The world x coordinate of the left edge of the screen.
+     * @param right The world x coordinate of the right edge of the screen.
+     */
+    public void update(int left, int right) {
+        int first = Math.floorDiv(left - LOAD_MARGIN, CHUNK_WIDTH);
+        int last = Math.floorDiv(right + LOAD_MARGIN, CHUNK_WIDTH);
+        if (first == firstWanted && last == lastWanted) {
+            return;
+        }
+        firstWanted = first;
+        lastWanted = last;
+
+        for (int chunk = first; chunk <= last; chunk++) {
+            if (!loaded.containsKey(chunk)) {
+                load(chunk);
+            }
+        }
+        int firstKept = Math.floorDiv(left - UNLOAD_MARGIN, CHUNK_WIDTH);
+        int lastKept = Math.floorDiv(right + UNLOAD_MARGIN, CHUNK_WIDTH);
+        for (Integer chunk: new ArrayList<>(loaded.keySet())) {
+            if (chunk < firstKept || chunk > lastKept) {
+                unload(chunk);
+            }
+        }
+    }
+
+    private void load(int chunk) {
+        int start = source.firstAtOrAfter(chunk * CHUNK_WIDTH);
+        int end = source.firstAtOrAfter((chunk + 1) * CHUNK_WIDTH);
+        Entity[] entities = new Entity[end - start];
+        for (int i = start; i < end; i++) {
+            EntityType type = source.getType(i);
+            if (!type.isStreamed() || consumed.get(i)) {
+                continue;
+            }
+            Entity entity = level.spawn(type, i, source.getX(i), source.getY(i));
+            if (entity instanceof Enemy && damagedPlayer.get(i)) {
+                ((Enemy) entity).setHasDamagedPlayer(true);
+            }
+            entities[i - start] = entity;
+        }
+        loaded.put(chunk, new Chunk(start, entities));
+    }
+
+    private void unload(int chunk) {
+        Chunk c = loaded.remove(chunk);
+        for (int i = 0; i < c.entities.length; i++) {
+            Entity entity = c.entities[i];
+            if (entity == null) {
+                continue;
+            }
+            int record = c.firstRecord + i;
+            if (entity instanceof Collectible && ((Collectible) entity).isCollected()) {
+                consumed.set(record);
+            }
+            if (entity instanceof Enemy && ((Enemy) entity).hasDamagedPlayer()) {
+                damagedPlayer.set(record);
+            }
+            level.despawn(source.getType(record), entity);
+        }
+    }
+
+    /**
+     * Write which chunks are loaded, the state of every entity in them, and which records have been collected or
+     * have damaged the player.
+     * @param out Where to write the streamer's state.
+     * @throws IOException If the state can't be written.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(source.size());
+        writeBits(consumed, out);
+        writeBits(damagedPlayer, out);
+        out.writeInt(firstWanted);
+        out.writeInt(lastWanted);
+        ArrayList<Integer> chunks = new ArrayList<>(loaded.keySet());
+        Collections.sort(chunks);
+        out.writeInt(chunks.size());
+        for (int chunk: chunks) {
+            out.writeInt(chunk);
+            for (Entity entity: loaded.get(chunk).entities) {
+                if (entity == null) {
+                    out.writeByte(NOT_SPAWNED);
+                }
+                else if (entity.isDisposed()) {
+                    // Collected items are removed from the level once they have floated off the screen
+                    out.writeByte(REMOVED);
+                }
+                else {
+                    out.writeByte(SPAWNED);
+                    entity.writeState(out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace every streamed entity in the level with those written by writeState.
+     * The chunks which were loaded are loaded again, and each entity's state is read back through the level.
+     * The level's tick count should be read before this is called, so entities are created where they would be.
+     * @param in Where to read the streamer's state from.
+     * @throws IOException If the state can't be read, or was written from a different level file.
+     */
+    public void readState(DataInput in) throws IOException {
+        int size = in.readInt();
+        if (size != source.size()) {
+            throw new IOException("Saved a level file with " + size + " entities, but it has " + source.size());
+        }
+        for (Integer chunk: new ArrayList<>(loaded.keySet())) {
+            unload(chunk);
+        }
+        consumed.clear();
+        consumed.or(readBits(in));
+        damagedPlayer.clear();
+        damagedPlayer.or(readBits(in));
+        firstWanted = in.readInt();
+        lastWanted = in.readInt();
+        int chunkCount = in.readInt();
+        for (int i = 0; i < chunkCount; i++) {
+            int chunk = in.readInt();
+            if (loaded.containsKey(chunk)) {
+                throw new IOException("Chunk " + chunk + " was saved twice");
+            }
+            load(chunk);
+            Chunk c = loaded.get(chunk);
+            for (int j = 0; j < c.entities.length; j++) {
+                int saved = in.readByte();
+                Entity entity = c.entities[j];
+                if ((saved == NOT_SPAWNED) != (entity == null) || saved < NOT_SPAWNED || saved > REMOVED
+                        || (saved == REMOVED && !(entity instanceof Collectible))) {
+                    throw new IOException("Chunk " + chunk + " doesn't match the level file");
+                }
+                EntityType type = source.getType(c.firstRecord + j);
+                if (saved == REMOVED) {
+                    ((Collectible) entity).setCollected(true);
+                    level.despawn(type, entity);
+                }
+                else if (saved == SPAWNED) {
+                    level.readEntityState(type, entity, in);
+                }
+            }
+        }
+    }
+
+    private static void writeBits(BitSet bits, DataOutput out) throws IOException {
+        long[] words = bits.toLongArray();
+        out.writeInt(words.length);
+        for (long word: words) {
+            out.writeLong(word);
+        }
+    }
+
+    private static BitSet readBits(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Saved a negative number of bits");
+        }
+        long[] words = new long[length];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Default constructor for the chunk streamer.
+     * @param level The level to create entities in.
+     * @param source The entities in the level file.
+     * @param chunkWidth The width of each chunk.
+     * @param loadMargin How far beyond the edges of the screen chunks are loaded.
+     * @param unloadMargin How far beyond the edges of the screen chunks are kept before being unloaded.
+     */
+    public ChunkStreamer(Level level, LevelSource source, int chunkWidth, int loadMargin, int unloadMargin) {
+        this.level = level;
+        this.source = source;
+        this.CHUNK_WIDTH = chunkWidth;
+        this.LOAD_MARGIN = loadMargin;
+        this.UNLOAD_MARGIN = unloadMargin;
+    }
+}
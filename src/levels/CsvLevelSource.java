@@ -0,0 +1,90 @@
+package levels;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A level read from a CSV file of "TYPE,x,y" lines.
+ * The lines are kept as compact arrays sorted by x, and entities are only created from them when needed.
+ * The lines have to be sorted, so the whole file is read and parsed when the level starts, and every line stays in
+ * memory until the level ends. Very long levels should be compiled with LevelCompiler, and read from the compiled
+ * file with BinaryLevelSource, which only reads the records the level asks for.
+ */
+public class CsvLevelSource implements LevelSource {
+    private final EntityType[] types;
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] permanent;
+
+    @Override
+    public int size() {
+        return types.length;
+    }
+
+    @Override
+    public EntityType getType(int index) {
+        return types[index];
+    }
+
+    @Override
+    public int getX(int index) {
+        return xs[index];
+    }
+
+    @Override
+    public int getY(int index) {
+        return ys[index];
+    }
+
+    @Override
+    public int getPermanentCount() {
+        return permanent.length;
+    }
+
+    @Override
+    public int getPermanentRecord(int i) {
+        return permanent[i];
+    }
+
+    /**
+     * Default constructor for a CSV level source.
+     * Lines with an unknown entity type are ignored.
+     * @param levelFile The path to the CSV file.
+     */
+    public CsvLevelSource(String levelFile) {
+        final ArrayList<String[]> LEVEL_INFO = main.IOUtils.readCsv(levelFile);
+        ArrayList<String[]> lines = new ArrayList<>();
+        for (String[] line: LEVEL_INFO) {
+            if (EntityType.fromName(line[0]) != null) {
+                lines.add(line);
+            }
+        }
+
+        // Sort by x, keeping the file's order for entities at the same x, by packing x above each line's index
+        long[] order = new long[lines.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = ((long) Integer.parseInt(lines.get(i)[1]) << 32) | i;
+        }
+        Arrays.sort(order);
+
+        types = new EntityType[order.length];
+        xs = new int[order.length];
+        ys = new int[order.length];
+        int permanentCount = 0;
+        for (int i = 0; i < order.length; i++) {
+            String[] line = lines.get((int) order[i]);
+            types[i] = EntityType.fromName(line[0]);
+            xs[i] = (int) (order[i] >> 32);
+            ys[i] = Integer.parseInt(line[2]);
+            if (!types[i].isStreamed()) {
+                permanentCount++;
+            }
+        }
+        permanent = new int[permanentCount];
+        for (int i = 0, j = 0; i < types.length; i++) {
+            if (!types[i].isStreamed()) {
+                permanent[j++] = i;
+            }
+        }
+    }
+}
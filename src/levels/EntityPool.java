@@ -0,0 +1,196 @@
+package levels;
+
+import entities.Entity;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An unordered collection of entities which can be removed from in constant time, even while it is being iterated.
+ * Removing an entity leaves a hole which iteration skips, and the holes are filled at the end of the tick by
+ * compact, which moves entities from the end of the pool into them.
+ * Loops which run every tick or frame should walk the pool's slots with getSlotCount and get, which allocates
+ * nothing, rather than use its iterator.
+ * @param <T> The type of entity in the pool.
+ */
+public class EntityPool<T extends Entity> implements Iterable<T> {
+    private static final int INITIAL_CAPACITY = 16;
+    private Entity[] items = new Entity[INITIAL_CAPACITY];
+    // Each entity's position in items plus one, indexed by its handle, so 0 means the entity isn't in the pool
+    private int[] positions = new int[INITIAL_CAPACITY];
+    private int[] holes = new int[INITIAL_CAPACITY];
+    private int holeCount = 0;
+    private int end = 0;
+    private int size = 0;
+
+    /**
+     * Get how many entities are in the pool.
+     * @return How many entities are in the pool.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get whether the pool has no entities in it.
+     * @return Whether the pool is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get how many slots the pool is using, including the holes left by entities removed since the last compaction.
+     * Entities added while the pool is being walked are put in new slots at the end, so the count should be read
+     * again on every step.
+     * @return How many slots the pool is using.
+     */
+    public int getSlotCount() {
+        return end;
+    }
+
+    /**
+     * Get the entity in one of the pool's slots.
+     * @param slot The slot, from 0 to getSlotCount() - 1.
+     * @return The entity in the slot, or null if the entity there has been removed.
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int slot) {
+        return (T) items[slot];
+    }
+
+    /**
+     * Add an entity to the pool.
+     * @param entity The entity to add.
+     */
+    public void add(T entity) {
+        int handle = entity.getHandle();
+        if (handle >= positions.length) {
+            positions = Arrays.copyOf(positions, Math.max(handle + 1, positions.length * 2));
+        }
+        if (end == items.length) {
+            items = Arrays.copyOf(items, end * 2);
+        }
+        items[end] = entity;
+        positions[handle] = ++end;
+        size++;
+    }
+
+    /**
+     * Check whether an entity is in the pool.
+     * @param entity The entity to look for.
+     * @return Whether the entity is in the pool.
+     */
+    public boolean contains(Entity entity) {
+        return indexOf(entity) >= 0;
+    }
+
+    /**
+     * Remove an entity from the pool. The entity's place is left empty until compact is called.
+     * @param entity The entity to remove.
+     * @return Whether the entity was in the pool.
+     */
+    public boolean remove(Entity entity) {
+        int index = indexOf(entity);
+        if (index < 0) {
+            return false;
+        }
+        items[index] = null;
+        positions[entity.getHandle()] = 0;
+        if (holeCount == holes.length) {
+            holes = Arrays.copyOf(holes, holeCount * 2);
+        }
+        holes[holeCount++] = index;
+        size--;
+        return true;
+    }
+
+    /**
+     * Fill the holes left by removed entities by moving entities from the end of the pool into them.
+     * Should only be called when the pool isn't being iterated, such as at the end of a tick.
+     */
+    public void compact() {
+        if (holeCount == 0) {
+            return;
+        }
+        Arrays.sort(holes, 0, holeCount);
+        for (int i = 0; i < holeCount; i++) {
+            while (end > 0 && items[end - 1] == null) {
+                end--;
+            }
+            int hole = holes[i];
+            if (hole >= end) {
+                break;
+            }
+            Entity last = items[--end];
+            items[end] = null;
+            items[hole] = last;
+            positions[last.getHandle()] = hole + 1;
+        }
+        while (end > 0 && items[end - 1] == null) {
+            end--;
+        }
+        holeCount = 0;
+    }
+
+    /**
+     * Remove every entity from the pool.
+     */
+    public void clear() {
+        for (int i = 0; i < end; i++) {
+            if (items[i] != null) {
+                positions[items[i].getHandle()] = 0;
+                items[i] = null;
+            }
+        }
+        end = 0;
+        size = 0;
+        holeCount = 0;
+    }
+
+    private int indexOf(Entity entity) {
+        int handle = entity.getHandle();
+        if (handle >= positions.length || positions[handle] == 0) {
+            return -1;
+        }
+        int index = positions[handle] - 1;
+        return items[index] == entity ? index : -1;
+    }
+
+    /**
+     * Iterate over the entities in the pool, skipping any removed since the last compaction.
+     * Entities may be removed from the pool while it is being iterated. Allocates an iterator, so only used outside
+     * the tick, such as when saving or disposing of a level.
+     * @return An iterator over the entities in the pool.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                // Entities ahead of the iterator may have been removed since the last call
+                next = skipHoles(next);
+                return next < end;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return (T) items[next++];
+            }
+        };
+    }
+
+    private int skipHoles(int index) {
+        while (index < end && items[index] == null) {
+            index++;
+        }
+        return index;
+    }
+}
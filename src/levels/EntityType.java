@@ -0,0 +1,46 @@
+package levels;
+
+/**
+ * Every type of entity which can appear in a level file.
+ * Compiled level files store each type by its position in this list, so new types must be added to the end.
+ */
+public enum EntityType {
+    PLATFORM(false),
+    PLAYER(false),
+    END_FLAG(false),
+    ENEMY_BOSS(false),
+    COIN(true),
+    ENEMY(true),
+    DOUBLE_SCORE(true),
+    INVINCIBLE_POWER(true),
+    FLYING_PLATFORM(true);
+
+    private final boolean streamed;
+
+    /**
+     * Get whether entities of this type are loaded and unloaded as the camera moves,
+     * rather than existing for the whole level.
+     * @return Whether entities of this type are streamed.
+     */
+    public boolean isStreamed() {
+        return streamed;
+    }
+
+    /**
+     * Find the entity type with a given name in a level file.
+     * @param name The name used in the level file.
+     * @return The entity type, or null if there is no entity type with that name.
+     */
+    public static EntityType fromName(String name) {
+        for (EntityType type: values()) {
+            if (type.name().equals(name)) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    EntityType(boolean streamed) {
+        this.streamed = streamed;
+    }
+}
@@ -0,0 +1,186 @@
+package levels;
+
+import entities.EntityStore;
+import entities.Fireball;
+import main.GameConfig;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A fixed number of fireballs which are reused for every throw, so the boss fight doesn't create any fireballs
+ * while it is being played.
+ */
+public class FireballPool {
+    /**
+     * What to do when a fireball is thrown while every fireball in the pool is in flight.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The new throw doesn't happen.
+         */
+        DROP_NEWEST,
+        /**
+         * The fireball which has been in flight the longest is taken for the new throw.
+         */
+        RECYCLE_OLDEST
+    }
+
+    private final Fireball[] fireballs;
+    // When each fireball was last thrown, or -1 if it isn't in flight
+    private final long[] thrownAt;
+    private final int[] free;
+    private int freeCount;
+    private long throwCount = 0;
+    private final OverflowPolicy OVERFLOW_POLICY;
+
+    /**
+     * Get how many fireballs are in flight.
+     * @return How many fireballs are in flight.
+     */
+    public int getActiveCount() {
+        return fireballs.length - freeCount;
+    }
+
+    /**
+     * Take a fireball from the pool for a new throw.
+     * If every fireball is in flight, the overflow policy decides whether the throw happens. A recycled fireball is
+     * still in the level's collections, so the caller should check before adding it again.
+     * @param x The x coordinate the fireball is thrown from.
+     * @param y The y coordinate the fireball is thrown from.
+     * @param goingRight The direction of the fireball along the x-axis.
+     * @param thrownByPlayer Whether the fireball was thrown by the player.
+     * @return The fireball, or null if the throw was dropped.
+     */
+    public Fireball obtain(int x, int y, boolean goingRight, boolean thrownByPlayer) {
+        int index;
+        if (freeCount > 0) {
+            index = free[--freeCount];
+        }
+        else if (OVERFLOW_POLICY == OverflowPolicy.RECYCLE_OLDEST && fireballs.length > 0) {
+            index = 0;
+            for (int i = 1; i < fireballs.length; i++) {
+                if (thrownAt[i] < thrownAt[index]) {
+                    index = i;
+                }
+            }
+        }
+        else {
+            return null;
+        }
+        thrownAt[index] = throwCount++;
+        Fireball f = fireballs[index];
+        f.reset(x, y, goingRight, thrownByPlayer);
+        return f;
+    }
+
+    /**
+     * Return a fireball to the pool once it has hit something or left the screen.
+     * Does nothing if the fireball isn't in flight.
+     * @param f The fireball to return.
+     */
+    public void release(Fireball f) {
+        int index = indexOf(f);
+        if (index >= 0 && thrownAt[index] >= 0) {
+            thrownAt[index] = -1;
+            free[freeCount++] = index;
+        }
+    }
+
+    /**
+     * Get a fireball by its place in the pool.
+     * @param index The fireball's place in the pool.
+     * @return The fireball.
+     */
+    Fireball get(int index) {
+        return fireballs[index];
+    }
+
+    /**
+     * Find a fireball's place in the pool.
+     * @param f The fireball to look for.
+     * @return The fireball's place in the pool, or -1 if it isn't from this pool.
+     */
+    int indexOf(Fireball f) {
+        int index = f.getPoolIndex();
+        return index >= 0 && index < fireballs.length && fireballs[index] == f ? index : -1;
+    }
+
+    /**
+     * Write which fireballs are in flight, the order they were thrown and will next be handed out in, and where
+     * each fireball is.
+     * @param out Where to write the pool's state.
+     * @throws IOException If the state can't be written.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(fireballs.length);
+        out.writeLong(throwCount);
+        out.writeInt(freeCount);
+        for (int i = 0; i < freeCount; i++) {
+            out.writeInt(free[i]);
+        }
+        for (int i = 0; i < fireballs.length; i++) {
+            out.writeLong(thrownAt[i]);
+            fireballs[i].writeState(out);
+        }
+    }
+
+    /**
+     * Read back the pool's state, as written by writeState.
+     * @param in Where to read the pool's state from.
+     * @throws IOException If the state can't be read, or was written by a pool of a different size.
+     */
+    public void readState(DataInput in) throws IOException {
+        int capacity = in.readInt();
+        if (capacity != fireballs.length) {
+            throw new IOException("Saved " + capacity + " fireballs, but the pool holds " + fireballs.length);
+        }
+        throwCount = in.readLong();
+        int count = in.readInt();
+        if (count < 0 || count > capacity) {
+            throw new IOException("Saved " + count + " free fireballs, but the pool holds " + capacity);
+        }
+        freeCount = count;
+        for (int i = 0; i < freeCount; i++) {
+            free[i] = in.readInt();
+            if (free[i] < 0 || free[i] >= capacity) {
+                throw new IOException("There is no fireball " + free[i] + " in the pool");
+            }
+        }
+        for (int i = 0; i < fireballs.length; i++) {
+            thrownAt[i] = in.readLong();
+            fireballs[i].readState(in);
+        }
+    }
+
+    /**
+     * Release every fireball's image back to the shared asset registry.
+     */
+    public void dispose() {
+        for (Fireball f: fireballs) {
+            f.dispose();
+        }
+    }
+
+    /**
+     * Default constructor for the fireball pool.
+     * @param store The store which holds the fireballs' positions.
+     * @param config The game's settings.
+     * @param capacity How many fireballs can be in flight at once.
+     * @param overflowPolicy What to do when a fireball is thrown while every fireball is in flight.
+     */
+    public FireballPool(EntityStore store, GameConfig config, int capacity, OverflowPolicy overflowPolicy) {
+        fireballs = new Fireball[capacity];
+        thrownAt = new long[capacity];
+        free = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            fireballs[i] = new Fireball(store, config, 0, 0, false, false, i);
+            thrownAt[i] = -1;
+            // Hand out the first fireball first
+            free[capacity - 1 - i] = i;
+        }
+        freeCount = capacity;
+        OVERFLOW_POLICY = overflowPolicy;
+    }
+}
@@ -3,10 +3,19 @@ package levels;
 import bagel.*;
 import entities.*;
 import entities.collectibles.*;
+import main.Assets;
+import main.Camera;
+import main.GameConfig;
+import main.InputSource;
+import main.LayeredRenderer;
+import main.Profiler;
+import main.Renderer;
 import main.Text;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Properties;
 
 /**
  * Parent class for all levels in the game.
@@ -28,11 +37,20 @@ public abstract class Level {
     /**
      * All enemies which appear in the level.
      */
-    protected ArrayList<Enemy> enemies;
+    protected EntityPool<Enemy> enemies;
     /**
      * All coins which appear in the level.
      */
-    protected ArrayList<Coin> coins;
+    protected EntityPool<Coin> coins;
+    /**
+     * Enemies bucketed by position, so collision checks only need to look at enemies near the player.
+     */
+    protected SpatialGrid<Enemy> enemyGrid;
+    /**
+     * Uncollected coins bucketed by position, so collision checks only need to look at coins near the player.
+     */
+    protected SpatialGrid<Coin> coinGrid;
+    private EntityPool<Coin> collectedCoins;
     /**
      * All double score powers which appear in the level - only appear in levels 2 and 3.
      */
@@ -45,10 +63,37 @@ public abstract class Level {
      * The base platform, which the player walks on.
      */
     protected Platform platform;
+    /**
+     * The game's settings, which the level's entities are created from.
+     */
+    protected final GameConfig config;
+    /**
+     * The store which holds the position and movement of every entity in the level.
+     */
+    protected final EntityStore entityStore = new EntityStore();
+    /**
+     * The camera the level is viewed through.
+     */
+    protected final Camera camera;
+    /**
+     * The width and height of each cell in the level's spatial grids.
+     */
+    protected final int GRID_CELL_SIZE;
     /**
      * The current state of the game.
      */
     protected main.GameState gameState = main.GameState.NOT_STARTED;
+    /**
+     * How many ticks of the simulation the level has been running for.
+     */
+    protected int ticks = 0;
+    /**
+     * Where every random choice in the level comes from.
+     */
+    protected final LevelRandom random;
+    private ChunkStreamer streamer;
+    private final ArrayList<EntityPool<?>> pools = new ArrayList<>();
+    private int sleepingCount = 0;
 
     /**
      * Check whether the player has died.
@@ -63,7 +108,7 @@ public abstract class Level {
      * @return Whether the player has reached the end flag.
      */
     public boolean checkReachedFlag() {
-        return player.euclideanDistance(endFlag) < player.collisionRange(endFlag);
+        return player.collidesWith(endFlag);
     }
 
     /**
@@ -71,7 +116,7 @@ public abstract class Level {
      * @return Whether the player has lost the level.
      */
     public boolean checkLossCondition() {
-        return player.getY() > Window.getHeight() + player.getRadius();
+        return player.getY() > camera.getHeight() + player.getRadius();
     }
 
     /**
@@ -82,11 +127,169 @@ public abstract class Level {
         return checkReachedFlag();
     }
 
+    /**
+     * Get the entity which the player controls.
+     * @return The entity which the player controls.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Get the seed every random choice in the level is made from.
+     * @return The level's seed.
+     */
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    /**
+     * Get the camera the level is viewed through.
+     * @return The camera the level is viewed through.
+     */
+    public Camera getCamera() {
+        return camera;
+    }
+
+    /**
+     * Advance the level by one tick of the simulation.
+     * @param input Any input the player may have given the program.
+     */
+    public void tick(InputSource input) {
+        long allocationStart = Profiler.startAllocation();
+        camera.beginTick();
+        savePositions();
+        long start = Profiler.start();
+        update(input);
+        Profiler.end(Profiler.Section.UPDATE, start);
+        moveRandomly();
+        for (int i = 0; i < pools.size(); i++) {
+            pools.get(i).compact();
+        }
+        ticks++;
+        streamChunks();
+        start = Profiler.start();
+        updateHud();
+        Profiler.end(Profiler.Section.HUD, start);
+        Profiler.endAllocation(Profiler.Section.TICK_ALLOCATION, allocationStart);
+    }
+
+    /**
+     * Get how many chunks of the level file currently have their entities loaded.
+     * @return How many chunks of the level file are loaded.
+     */
+    public int getLoadedChunkCount() {
+        return streamer.getLoadedChunkCount();
+    }
+
+    /**
+     * Load the entities in a level file.
+     * The entities which exist for the whole level are created straight away, and the rest are created a chunk
+     * at a time as the camera comes near them.
+     * @param levelFile The path to the level file.
+     */
+    protected void loadLevel(String levelFile) {
+        streamer = new ChunkStreamer(this, LevelSource.open(levelFile), config.CHUNK_WIDTH, config.LOAD_MARGIN,
+                config.UNLOAD_MARGIN);
+        streamer.loadPermanentEntities();
+        streamChunks();
+        updateHud();
+    }
+
+    private void streamChunks() {
+        streamer.update(camera.getOffsetX(), camera.getOffsetX() + camera.getWidth());
+    }
+
+    /**
+     * Create an entity from the level file and add it to the level.
+     * Entities which move on their own are moved to where they would be had they existed since the level started.
+     * @param type The type of entity to create.
+     * @param record The index of the entity's record in the level file.
+     * @param x The initial x coordinate of the entity.
+     * @param y The initial y coordinate of the entity.
+     * @return The entity created, or null if this level has no entities of that type.
+     */
+    protected Entity spawn(EntityType type, int record, int x, int y) {
+        switch (type) {
+            case PLATFORM:
+                platform = new Platform(entityStore, config, x, y);
+                return platform;
+            case PLAYER:
+                player = new Player(entityStore, config, x, y);
+                return player;
+            case END_FLAG:
+                endFlag = new EndFlag(entityStore, config, x, y);
+                return endFlag;
+            case COIN:
+                Coin c = new Coin(entityStore, config, x, y);
+                coins.add(c);
+                coinGrid.add(c);
+                return c;
+            case ENEMY:
+                Enemy e = new Enemy(entityStore, config, x, y, random.forEntity(record));
+                e.fastForward(ticks);
+                enemies.add(e);
+                enemyGrid.add(e);
+                return e;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Remove an entity created by spawn from the level, releasing its image.
+     * Does nothing if the entity has already been removed from the level.
+     * @param type The type of entity given to spawn.
+     * @param entity The entity to remove.
+     */
+    protected void despawn(EntityType type, Entity entity) {
+        boolean removed = false;
+        switch (type) {
+            case COIN:
+                removed = coins.remove(entity);
+                coinGrid.remove((Coin) entity);
+                collectedCoins.remove(entity);
+                break;
+            case ENEMY:
+                removed = enemies.remove(entity);
+                enemyGrid.remove((Enemy) entity);
+                break;
+        }
+        if (removed) {
+            entity.dispose();
+        }
+    }
+
+    /**
+     * Remember the position of every entity at the start of the tick, so drawing can interpolate between ticks.
+     */
+    protected void savePositions() {
+        entityStore.savePositions();
+    }
+
+    /**
+     * Move the entities which wander back and forth on their own.
+     * Entities far enough from the screen are put to sleep instead, and caught up once they come back into range.
+     */
+    protected void moveRandomly() {
+        int left = camera.getOffsetX() - config.SLEEP_MARGIN;
+        int right = camera.getOffsetX() + camera.getWidth() + config.SLEEP_MARGIN;
+        sleepingCount = entityStore.updateSleeping(left, right, ticks);
+        entityStore.moveRandomly();
+        // Only awake entities have moved, including any woken this tick, so sleeping enemies keep their cells
+        for (int i = 0; i < entityStore.getAwakeCount(); i++) {
+            Entity e = entityStore.getAwake(i);
+            if (e instanceof Enemy) {
+                enemyGrid.update((Enemy) e);
+            }
+        }
+    }
+
     /**
      * Update all entity's status in the level.
      * @param input Any input the player may have given the program.
      */
-    public void update(Input input) {
+    public void update(InputSource input) {
         // Loss condition
         if (checkPlayerDeath()) {
             // Move player down until off-screen
@@ -103,15 +306,17 @@ public abstract class Level {
             moveEntitiesX(true);
         }
 
+        long start = Profiler.start();
         checkCollectibleCollisions();
 
         // Check for player collision with enemy
-        for (Enemy e: enemies) {
-            if (player.euclideanDistance(e) < player.collisionRange(e) && !e.hasDamagedPlayer() && !player.isInvincible()) {
+        for (Enemy e: enemyGrid.queryNear(player)) {
+            if (player.collidesWith(e) && !e.hasDamagedPlayer() && !player.isInvincible()) {
                 player.takeDamage(e.getDamage());
                 e.setHasDamagedPlayer(true);
             }
         }
+        Profiler.end(Profiler.Section.COLLISIONS, start);
         updatePlayerJumping(input);
     };
 
@@ -119,7 +324,7 @@ public abstract class Level {
      * Update player's position in a jump.
      * @param input Any input the player may have given the program.
      */
-    public void updatePlayerJumping(Input input) {
+    public void updatePlayerJumping(InputSource input) {
         if (input.wasPressed(Keys.UP)) {
             player.startJumping();
         }
@@ -129,39 +334,148 @@ public abstract class Level {
     }
 
     /**
-     * Draw in world.
+     * Get how many entities were too far from the screen to be moved on the last tick.
+     * @return How many entities are asleep.
      */
-    public void drawWorld() {
-        platform.draw();
-        player.draw();
-        endFlag.draw();
-        for (Enemy e: enemies) {
-            e.randomlyMoveX();
-            e.draw();
+    public int getSleepingCount() {
+        return sleepingCount;
+    }
+
+    /**
+     * Write everything about the level which can change while it is played, so it can be carried on from the same
+     * point later with readState.
+     * Entities which haven't been streamed in aren't written, since they are created from the level file when
+     * their chunk is loaded.
+     * @param out Where to write the level's state.
+     * @throws IOException If the state can't be written.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeLong(random.getSeed());
+        out.writeInt(ticks);
+        camera.writeState(out);
+        player.writeState(out);
+        platform.writeState(out);
+        streamer.writeState(out);
+    }
+
+    /**
+     * Put the level back into the state written by writeState.
+     * The level must have been created from the same settings, level file and seed as the one whose state was
+     * written, but may have been played to any point since. If reading fails part way through, the level is left
+     * half restored, and shouldn't be played.
+     * @param in Where to read the level's state from.
+     * @throws IOException If the state can't be read, or was written by a different level.
+     */
+    public void readState(DataInput in) throws IOException {
+        long seed = in.readLong();
+        if (seed != random.getSeed()) {
+            throw new IOException("Saved a level with seed " + seed + ", but this level has seed " + random.getSeed());
         }
-        for (Coin c: coins) {
-            c.draw();
+        ticks = in.readInt();
+        camera.readState(in);
+        player.readState(in);
+        platform.readState(in);
+        // Hold onto every entity image while the streamed entities are replaced, so none are unloaded and loaded again
+        String[] imagePaths = config.getEntityImagePaths();
+        for (String path: imagePaths) {
+            Assets.acquireImage(path);
+        }
+        try {
+            streamer.readState(in);
+        } finally {
+            for (String path: imagePaths) {
+                Assets.releaseImage(path);
+            }
+        }
+        for (EntityPool<?> pool: pools) {
+            pool.compact();
+        }
+        updateHud();
+    }
+
+    /**
+     * Read back the state of an entity which was streamed in, and put it back where it belongs in the level.
+     * @param type The type of entity given to spawn.
+     * @param entity The entity, which spawn has just created.
+     * @param in Where to read the entity's state from.
+     * @throws IOException If the state can't be read.
+     */
+    protected void readEntityState(EntityType type, Entity entity, DataInput in) throws IOException {
+        entity.readState(in);
+        switch (type) {
+            case COIN:
+                Coin c = (Coin) entity;
+                if (c.isCollected()) {
+                    coinGrid.remove(c);
+                    collectedCoins.add(c);
+                }
+                break;
+            case ENEMY:
+                enemyGrid.update((Enemy) entity);
+                break;
         }
-        SCORE.drawConcatenate(String.valueOf(player.getScore()));
-        PLAYER_HEALTH.drawConcatenate(String.valueOf((Math.round(player.getHealth() * 100))));
     }
 
     /**
-     * Move all game entities along the x-axis.
-     * @param movingRight Whether the entities are moving right or left.
+     * Update the score and health shown on the screen.
+     * Called at the end of every tick, so drawing never has to build any text.
+     */
+    protected void updateHud() {
+        SCORE.setValue(player.getScore());
+        PLAYER_HEALTH.setValue(Math.round(player.getHealth() * 100));
+    }
+
+    /**
+     * Draw in world.
+     * Everything is drawn on a layer, so the renderer can sort what is drawn by layer and image.
+     * Drawing only reads the level, and never changes it, so the level must not be ticked while it is being drawn.
+     * @param renderer The renderer to draw the level's entities and text with.
+     * @param alpha How far between the last tick and the next tick to draw moving entities, from 0 to 1.
+     */
+    public void drawWorld(LayeredRenderer renderer, double alpha) {
+        renderer.setLayer(LayeredRenderer.TERRAIN);
+        platform.draw(renderer, camera, alpha);
+        renderer.setLayer(LayeredRenderer.ITEMS);
+        endFlag.draw(renderer, camera, alpha);
+        drawVisible(renderer, coins, alpha);
+        renderer.setLayer(LayeredRenderer.CHARACTERS);
+        drawVisible(renderer, enemies, alpha);
+        renderer.setLayer(LayeredRenderer.PLAYER);
+        player.draw(renderer, camera, alpha);
+        renderer.setLayer(LayeredRenderer.HUD);
+        SCORE.drawValue(renderer);
+        PLAYER_HEALTH.drawValue(renderer);
+    }
+
+    /**
+     * Draw the entities which are on the screen, or close enough to it that part of them might be.
+     * @param renderer The renderer to draw the entities with.
+     * @param entities The entities to draw.
+     * @param alpha How far between the last tick and the next tick to draw the entities, from 0 to 1.
+     */
+    protected void drawVisible(Renderer renderer, EntityPool<? extends Entity> entities, double alpha) {
+        for (int i = 0; i < entities.getSlotCount(); i++) {
+            Entity e = entities.get(i);
+            if (e != null && camera.isVisible(e.getX(), config.DRAW_MARGIN)) {
+                e.draw(renderer, camera, alpha);
+            }
+        }
+    }
+
+    /**
+     * Move the player along the x-axis, scrolling the camera with them.
+     * Every other entity keeps its world coordinates, so this doesn't depend on how many entities are in the level.
+     * @param movingRight Whether the player is moving right or left.
      */
     public void moveEntitiesX(boolean movingRight) {
         player.setFacingRight(movingRight);
-        endFlag.moveX(movingRight);
 
-        if (platform.getX() < Platform.MAX_X) {
-            platform.moveX(movingRight);
-        }
-        for (Coin c : coins) {
-            c.moveX(movingRight);
-        }
-        for (Enemy e : enemies) {
-            e.moveX(movingRight);
+        // The platform stops scrolling once it reaches MAX_X on screen, so keep it in place on screen from then on
+        boolean platformFixedOnScreen = camera.toScreenX(platform.getX()) >= Platform.MAX_X;
+        int dx = camera.scroll(movingRight);
+        player.setX(player.getX() + dx);
+        if (platformFixedOnScreen) {
+            platform.setX(platform.getX() + dx);
         }
     }
 
@@ -170,44 +484,94 @@ public abstract class Level {
      */
     public void checkCollectibleCollisions() {
         // Check for player collision with coin
-        for (Coin c: new ArrayList<>(coins)) {
+        for (Coin c: coinGrid.queryNear(player)) {
             if (player.collidedWith(c)) {
                 player.incrementScore(c.getValue() * player.getScoreMultiplier());
                 c.setCollected(true);
+                coinGrid.remove(c);
+                collectedCoins.add(c);
             }
-            if (c.isCollected()) {
-                c.playCollectAnimation();
-                if (c.isOffScreen()) {
-                    coins.remove(c);
-                }
+        }
+        animateCollected(collectedCoins, coins);
+    }
+
+    /**
+     * Play the collection animation for collected items, removing them from the level once they are off-screen.
+     * @param collected The items which have been collected but haven't left the screen yet.
+     * @param all Every item of the same type which is still in the level.
+     * @param <T> The type of collectible.
+     */
+    protected <T extends Collectible> void animateCollected(EntityPool<T> collected, EntityPool<T> all) {
+        for (int i = 0; i < collected.getSlotCount(); i++) {
+            T c = collected.get(i);
+            if (c == null) {
+                continue;
+            }
+            c.playCollectAnimation();
+            if (c.isOffScreen()) {
+                collected.remove(c);
+                all.remove(c);
+                c.dispose();
             }
         }
     }
 
     /**
-     * Default constructor for the level.
-     * @param game_props Properties file containing game information.
-     * @param message_props Properties file containing information about text.
+     * Create an empty entity pool whose removals are compacted at the end of every tick.
+     * @param <T> The type of entity in the pool.
+     * @return The new pool.
      */
-    public Level(Properties game_props, Properties message_props) {
+    protected <T extends Entity> EntityPool<T> newPool() {
+        EntityPool<T> pool = new EntityPool<>();
+        pools.add(pool);
+        return pool;
+    }
 
-        final String FONT = game_props.getProperty("font");
+    /**
+     * Release every entity's image back to the shared asset registry.
+     * Should be called once the level is no longer being played.
+     */
+    public void dispose() {
+        player.dispose();
+        platform.dispose();
+        endFlag.dispose();
+        for (Enemy e: enemies) {
+            e.dispose();
+        }
+        for (Coin c: coins) {
+            c.dispose();
+        }
+    }
+
+    /**
+     * Default constructor for the level.
+     * @param config The game's settings.
+     * @param seed The seed for every random choice made in the level.
+     */
+    public Level(GameConfig config, long seed) {
+        this.config = config;
+        this.random = new LevelRandom(seed);
 
-        enemies = new ArrayList<>();
-        coins = new ArrayList<>();
+        enemies = newPool();
+        coins = newPool();
+        camera = new Camera(config.SCROLL_SPEED, config.WINDOW_WIDTH, config.WINDOW_HEIGHT);
+        GRID_CELL_SIZE = config.GRID_CELL_SIZE;
+        enemyGrid = new SpatialGrid<>(GRID_CELL_SIZE);
+        coinGrid = new SpatialGrid<>(GRID_CELL_SIZE);
+        collectedCoins = newPool();
 
         SCORE = new Text(
-                message_props.getProperty("score"),
-                new Font(FONT, Integer.parseInt(game_props.getProperty("score.fontSize"))),
-                Integer.parseInt(game_props.getProperty("score.x")),
-                Integer.parseInt(game_props.getProperty("score.y"))
+                config.SCORE_MESSAGE,
+                Assets.getFont(config.FONT, config.SCORE.FONT_SIZE),
+                config.SCORE.X,
+                config.SCORE.Y
         );
 
         PLAYER_HEALTH = new Text(
-                message_props.getProperty("health"),
-                new Font(FONT, Integer.parseInt(game_props.getProperty("playerHealth.fontSize"))),
-                Integer.parseInt(game_props.getProperty("playerHealth.x")),
-                Integer.parseInt(game_props.getProperty("playerHealth.y"))
+                config.HEALTH_MESSAGE,
+                Assets.getFont(config.FONT, config.PLAYER_HEALTH.FONT_SIZE),
+                config.PLAYER_HEALTH.X,
+                config.PLAYER_HEALTH.Y
         );
 
     }
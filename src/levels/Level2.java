@@ -1,20 +1,29 @@
 package levels;
 
-import bagel.Input;
 import bagel.Keys;
 import entities.*;
 import entities.collectibles.*;
+import main.InputSource;
+import main.LayeredRenderer;
 
-import java.util.ArrayList;
-import java.util.Properties;
+import main.GameConfig;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * The second level of the game.
  */
 public class Level2 extends Level {
-    private ArrayList<FlyingPlatform> flyingPlatforms;
-    private ArrayList<DoubleScorePower> doubleScores;
-    private ArrayList<InvinciblePower> invinciblePowers;
+    private EntityPool<FlyingPlatform> flyingPlatforms;
+    private PlatformIndex flyingPlatformIndex;
+    private EntityPool<DoubleScorePower> doubleScores;
+    private EntityPool<InvinciblePower> invinciblePowers;
+    private SpatialGrid<DoubleScorePower> doubleScoreGrid;
+    private SpatialGrid<InvinciblePower> invinciblePowerGrid;
+    private EntityPool<DoubleScorePower> collectedDoubleScores;
+    private EntityPool<InvinciblePower> collectedInvinciblePowers;
     private int framesOfDoubleScoreRemaining = -1;
     private int framesOfInvincibilityRemaining = -1;
 
@@ -23,52 +32,31 @@ public class Level2 extends Level {
      * @param input Any input the player may have given the program.
      */
     @Override
-    public void updatePlayerJumping(Input input) {
+    public void updatePlayerJumping(InputSource input) {
         if (input.wasPressed(Keys.UP)) {
             player.startJumping();
         }
         if (player.isJumping()) {
-            player.jump(flyingPlatforms);
+            player.jump(flyingPlatformIndex);
         }
-        if (player.walkedOffEdge(flyingPlatforms)) {
+        if (player.walkedOffEdge(flyingPlatformIndex)) {
             player.fall();
         }
     }
 
     /**
      * Draw in world.
+     * @param renderer The renderer to draw the level's entities and text with.
+     * @param alpha How far between the last tick and the next tick to draw moving entities, from 0 to 1.
      */
     @Override
-    public void drawWorld() {
-        super.drawWorld();
-        for (DoubleScorePower d: doubleScores) {
-            d.draw();
-        }
-        for (InvinciblePower i: invinciblePowers) {
-            i.draw();
-        }
-        for (FlyingPlatform f: flyingPlatforms) {
-            f.randomlyMoveX();
-            f.draw();
-        }
-    }
-
-    /**
-     * Move all game entities along the x-axis.
-     * @param movingRight Whether the entities are moving right or left.
-     */
-    @Override
-    public void moveEntitiesX(boolean movingRight) {
-        super.moveEntitiesX(movingRight);
-        for (DoubleScorePower d: doubleScores) {
-            d.moveX(movingRight);
-        }
-        for (InvinciblePower i: invinciblePowers) {
-            i.moveX(movingRight);
-        }
-        for (FlyingPlatform f: flyingPlatforms) {
-            f.moveX(movingRight);
-        }
+    public void drawWorld(LayeredRenderer renderer, double alpha) {
+        super.drawWorld(renderer, alpha);
+        renderer.setLayer(LayeredRenderer.TERRAIN);
+        drawVisible(renderer, flyingPlatforms, alpha);
+        renderer.setLayer(LayeredRenderer.ITEMS);
+        drawVisible(renderer, doubleScores, alpha);
+        drawVisible(renderer, invinciblePowers, alpha);
     }
 
     /**
@@ -78,36 +66,150 @@ public class Level2 extends Level {
     public void checkCollectibleCollisions() {
         super.checkCollectibleCollisions();
         // Check for player collision with double score powerups
-        for (DoubleScorePower d: new ArrayList<>(doubleScores)) {
+        for (DoubleScorePower d: doubleScoreGrid.queryNear(player)) {
             if (player.collidedWith(d)) {
                 player.setScoreMultiplier(DoubleScorePower.getScoreMultiplier());
                 framesOfDoubleScoreRemaining = d.getDuration();
                 d.setCollected(true);
-            }
-            if (d.isCollected()) {
-                d.playCollectAnimation();
-                if (d.isOffScreen()) {
-                    doubleScores.remove(d);
-                }
+                doubleScoreGrid.remove(d);
+                collectedDoubleScores.add(d);
             }
         }
+        animateCollected(collectedDoubleScores, doubleScores);
         // Check for collision with invincibility powerups
-        for (InvinciblePower i: new ArrayList<>(invinciblePowers)) {
+        for (InvinciblePower i: invinciblePowerGrid.queryNear(player)) {
             if (player.collidedWith(i)) {
                 player.setInvincible(true);
                 framesOfInvincibilityRemaining = i.getDuration();
                 i.setCollected(true);
-            }
-            if (i.isCollected()) {
-                i.playCollectAnimation();
-                if (i.isOffScreen()) {
-                    invinciblePowers.remove(i);
-                }
+                invinciblePowerGrid.remove(i);
+                collectedInvinciblePowers.add(i);
             }
         }
+        animateCollected(collectedInvinciblePowers, invinciblePowers);
         updatePowerUpDurations();
     }
 
+    /**
+     * Create an entity from the level file and add it to the level.
+     * @param type The type of entity to create.
+     * @param record The index of the entity's record in the level file.
+     * @param x The initial x coordinate of the entity.
+     * @param y The initial y coordinate of the entity.
+     * @return The entity created, or null if this level has no entities of that type.
+     */
+    @Override
+    protected Entity spawn(EntityType type, int record, int x, int y) {
+        switch (type) {
+            case DOUBLE_SCORE:
+                DoubleScorePower d = new DoubleScorePower(entityStore, config, x, y);
+                doubleScores.add(d);
+                doubleScoreGrid.add(d);
+                return d;
+            case INVINCIBLE_POWER:
+                InvinciblePower i = new InvinciblePower(entityStore, config, x, y);
+                invinciblePowers.add(i);
+                invinciblePowerGrid.add(i);
+                return i;
+            case FLYING_PLATFORM:
+                FlyingPlatform f = new FlyingPlatform(entityStore, config, x, y, random.forEntity(record));
+                f.fastForward(ticks);
+                flyingPlatforms.add(f);
+                flyingPlatformIndex.add(f);
+                return f;
+            default:
+                return super.spawn(type, record, x, y);
+        }
+    }
+
+    /**
+     * Remove an entity created by spawn from the level, releasing its image.
+     * Does nothing if the entity has already been removed from the level.
+     * @param type The type of entity given to spawn.
+     * @param entity The entity to remove.
+     */
+    @Override
+    protected void despawn(EntityType type, Entity entity) {
+        boolean removed;
+        switch (type) {
+            case DOUBLE_SCORE:
+                removed = doubleScores.remove(entity);
+                doubleScoreGrid.remove((DoubleScorePower) entity);
+                collectedDoubleScores.remove(entity);
+                break;
+            case INVINCIBLE_POWER:
+                removed = invinciblePowers.remove(entity);
+                invinciblePowerGrid.remove((InvinciblePower) entity);
+                collectedInvinciblePowers.remove(entity);
+                break;
+            case FLYING_PLATFORM:
+                removed = flyingPlatforms.remove(entity);
+                flyingPlatformIndex.remove((FlyingPlatform) entity);
+                break;
+            default:
+                super.despawn(type, entity);
+                return;
+        }
+        if (removed) {
+            entity.dispose();
+        }
+    }
+
+    /**
+     * Write the level's state, including how long the player's powerups have left.
+     * @param out Where to write the level's state.
+     * @throws IOException If the state can't be written.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(framesOfDoubleScoreRemaining);
+        out.writeInt(framesOfInvincibilityRemaining);
+    }
+
+    /**
+     * Put the level back into the state written by writeState.
+     * @param in Where to read the level's state from.
+     * @throws IOException If the state can't be read, or was written by a different level.
+     */
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        framesOfDoubleScoreRemaining = in.readInt();
+        framesOfInvincibilityRemaining = in.readInt();
+    }
+
+    /**
+     * Read back the state of an entity which was streamed in, and put it back where it belongs in the level.
+     * @param type The type of entity given to spawn.
+     * @param entity The entity, which spawn has just created.
+     * @param in Where to read the entity's state from.
+     * @throws IOException If the state can't be read.
+     */
+    @Override
+    protected void readEntityState(EntityType type, Entity entity, DataInput in) throws IOException {
+        switch (type) {
+            case DOUBLE_SCORE:
+                DoubleScorePower d = (DoubleScorePower) entity;
+                d.readState(in);
+                if (d.isCollected()) {
+                    doubleScoreGrid.remove(d);
+                    collectedDoubleScores.add(d);
+                }
+                break;
+            case INVINCIBLE_POWER:
+                InvinciblePower i = (InvinciblePower) entity;
+                i.readState(in);
+                if (i.isCollected()) {
+                    invinciblePowerGrid.remove(i);
+                    collectedInvinciblePowers.add(i);
+                }
+                break;
+            default:
+                super.readEntityState(type, entity, in);
+        }
+    }
+
     /**
      * Update how long powerups have left.
      */
@@ -127,49 +229,39 @@ public class Level2 extends Level {
     }
 
     /**
-     * Default constructor for level 2.
-     * @param game_props Properties file containing game information.
-     * @param message_props Properties file containing information about text.
+     * Release every entity's image back to the shared asset registry.
      */
-    public Level2(Properties game_props, Properties message_props) {
-        super(game_props, message_props);
-
-        flyingPlatforms = new ArrayList<>();
-        doubleScores = new ArrayList<>();
-        invinciblePowers = new ArrayList<>();
-
-        String level_file = game_props.getProperty("level2File");
-        final ArrayList<String[]> LEVEL_INFO = main.IOUtils.readCsv(level_file);
-        // Save info for easier access
-        for (String[] line: LEVEL_INFO) {
-            int x = Integer.parseInt(line[1]);
-            int y = Integer.parseInt(line[2]);
-            switch (line[0]) {
-                case "PLATFORM":
-                    platform = new Platform(x, y);
-                    break;
-                case "PLAYER":
-                    player = new Player(x, y);
-                    break;
-                case "COIN":
-                    coins.add(new Coin(x, y));
-                    break;
-                case "ENEMY":
-                    enemies.add(new Enemy(x, y));
-                    break;
-                case "END_FLAG":
-                    endFlag = new EndFlag(x, y);
-                    break;
-                case "DOUBLE_SCORE":
-                    doubleScores.add(new DoubleScorePower(x, y));
-                    break;
-                case "INVINCIBLE_POWER":
-                    invinciblePowers.add(new InvinciblePower(x, y));
-                    break;
-                case "FLYING_PLATFORM":
-                    flyingPlatforms.add(new FlyingPlatform(x, y));
-                    break;
-            }
+    @Override
+    public void dispose() {
+        super.dispose();
+        for (DoubleScorePower d: doubleScores) {
+            d.dispose();
+        }
+        for (InvinciblePower i: invinciblePowers) {
+            i.dispose();
         }
+        for (FlyingPlatform f: flyingPlatforms) {
+            f.dispose();
+        }
+    }
+
+    /**
+     * Default constructor for level 2.
+     * @param config The game's settings.
+     * @param seed The seed for every random choice made in the level.
+     */
+    public Level2(GameConfig config, long seed) {
+        super(config, seed);
+
+        flyingPlatforms = newPool();
+        flyingPlatformIndex = new PlatformIndex();
+        doubleScores = newPool();
+        invinciblePowers = newPool();
+        doubleScoreGrid = new SpatialGrid<>(GRID_CELL_SIZE);
+        invinciblePowerGrid = new SpatialGrid<>(GRID_CELL_SIZE);
+        collectedDoubleScores = newPool();
+        collectedInvinciblePowers = newPool();
+
+        loadLevel(config.getLevelFile(2));
     }
 }
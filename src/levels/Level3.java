@@ -4,20 +4,32 @@ import bagel.*;
 import bagel.util.Colour;
 import entities.*;
 import entities.collectibles.*;
+import main.Assets;
+import main.GameConfig;
+import main.InputSource;
+import main.LayeredRenderer;
 import main.Text;
 
-import java.util.ArrayList;
-import java.util.Properties;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 /**
  * The third level of the game.
  */
 public class Level3 extends Level {
     private Boss boss;
-    private ArrayList<FlyingPlatform> flyingPlatforms;
-    private ArrayList<Fireball> fireballs;
-    private ArrayList<DoubleScorePower> doubleScores;
-    private ArrayList<InvinciblePower> invinciblePowers;
+    private EntityPool<FlyingPlatform> flyingPlatforms;
+    private PlatformIndex flyingPlatformIndex;
+    private EntityPool<Fireball> fireballs;
+    private SpatialGrid<Fireball> fireballGrid;
+    private final FireballPool fireballPool;
+    private EntityPool<DoubleScorePower> doubleScores;
+    private EntityPool<InvinciblePower> invinciblePowers;
+    private SpatialGrid<DoubleScorePower> doubleScoreGrid;
+    private SpatialGrid<InvinciblePower> invinciblePowerGrid;
+    private EntityPool<DoubleScorePower> collectedDoubleScores;
+    private EntityPool<InvinciblePower> collectedInvinciblePowers;
     private int framesOfDoubleScoreRemaining = -1;
     private int framesOfInvincibilityRemaining = -1;
     private final Text BOSS_HEALTH;
@@ -36,11 +48,11 @@ public class Level3 extends Level {
      * @param input Any input the player may have given the program.
      */
     @Override
-    public void update(Input input) {
+    public void update(InputSource input) {
         super.update(input);
 
         // Check for boss death
-        if (boss.getHealth() <= 0 && boss.getY() < Window.getHeight() + 5 * boss.getRadius()) {
+        if (boss.getHealth() <= 0 && boss.getY() < camera.getHeight() + 5 * boss.getRadius()) {
             boss.die();
         }
 
@@ -53,13 +65,13 @@ public class Level3 extends Level {
             // Throw player fireball - always thrown towards the boss
             if (input.wasPressed(Keys.S)) {
                 boolean playerThrowingRight = player.getX() < boss.getX();
-                fireballs.add(new Fireball(player.getX(), player.getY(), playerThrowingRight, true));
+                addFireball(player.getX(), player.getY(), playerThrowingRight, true);
             }
             if (boss.getFramesUntilFireballAttempt() <= 0) {
                 // Randomly throw boss fireball - always thrown towards the player
                 if (boss.successfulFireballThrow()) {
                     boolean bossFacingRight = player.getX() > boss.getX();
-                    fireballs.add(new Fireball(boss.getX(), boss.getY(), bossFacingRight, false));
+                    addFireball(boss.getX(), boss.getY(), bossFacingRight, false);
                     boss.setFramesUntilFireballAttempt(boss.getFRAMES_BETWEEN_FIREBALL_ATTEMPT());
                 }
                 else {
@@ -68,84 +80,100 @@ public class Level3 extends Level {
             }
         }
 
+        for (int i = 0; i < fireballs.getSlotCount(); i++) {
+            Fireball f = fireballs.get(i);
+            if (f != null) {
+                f.moveX(!f.isGoingRight(), f.getShootingSpeed());
+                fireballGrid.update(f);
+            }
+        }
+
         // Check for fireball collisions
-        for (Fireball f: new ArrayList<>(fireballs)) {
-            f.moveX(!f.isGoingRight(), f.getShootingSpeed());
-            if (player.euclideanDistance(f) < player.collisionRange(f) && !f.thrownByPlayer()) {
+        for (Fireball f: fireballGrid.queryNear(player)) {
+            if (player.collidesWith(f) && !f.thrownByPlayer()) {
                 player.takeDamage(f.getDamage());
-                fireballs.remove(f);
+                removeFireball(f);
             }
-            else if (boss.euclideanDistance(f) < boss.collisionRange(f)
-                    && f.thrownByPlayer()) {
+        }
+        for (Fireball f: fireballGrid.queryNear(boss)) {
+            if (boss.collidesWith(f) && f.thrownByPlayer()) {
                 boss.takeDamage(f.getDamage());
-                fireballs.remove(f);
+                removeFireball(f);
             }
-            else if (f.getX() > Window.getWidth() || f.getX() < 0) {
-                fireballs.remove(f);
+        }
+        for (int i = 0; i < fireballs.getSlotCount(); i++) {
+            Fireball f = fireballs.get(i);
+            if (f != null && (camera.toScreenX(f.getX()) > camera.getWidth() || camera.toScreenX(f.getX()) < 0)) {
+                removeFireball(f);
             }
         }
     }
 
+    private void addFireball(int x, int y, boolean goingRight, boolean thrownByPlayer) {
+        Fireball f = fireballPool.obtain(x, y, goingRight, thrownByPlayer);
+        if (f == null) {
+            return;
+        }
+        // A recycled fireball is still in flight, so it only needs moving to its new cell
+        if (fireballs.contains(f)) {
+            fireballGrid.update(f);
+        }
+        else {
+            fireballs.add(f);
+            fireballGrid.add(f);
+        }
+    }
+
+    private void removeFireball(Fireball f) {
+        fireballs.remove(f);
+        fireballGrid.remove(f);
+        fireballPool.release(f);
+    }
+
     /**
      * Update player's position in a jump.
      * @param input Any input the player may have given the program.
      */
     @Override
-    public void updatePlayerJumping(Input input) {
+    public void updatePlayerJumping(InputSource input) {
         if (input.wasPressed(Keys.UP)) {
             player.startJumping();
         }
         if (player.isJumping()) {
-            player.jump(flyingPlatforms);
+            player.jump(flyingPlatformIndex);
         }
-        if (player.walkedOffEdge(flyingPlatforms)) {
+        if (player.walkedOffEdge(flyingPlatformIndex)) {
             player.fall();
         }
     }
 
     /**
      * Draw in world.
+     * @param renderer The renderer to draw the level's entities and text with.
+     * @param alpha How far between the last tick and the next tick to draw moving entities, from 0 to 1.
      */
     @Override
-    public void drawWorld() {
-        super.drawWorld();
-        for (DoubleScorePower d: doubleScores) {
-            d.draw();
-        }
-        for (InvinciblePower i: invinciblePowers) {
-            i.draw();
-        }
-        for (FlyingPlatform f: flyingPlatforms) {
-            f.randomlyMoveX();
-            f.draw();
-        }
-        for (Fireball f: fireballs) {
-            f.draw();
-        }
-        boss.draw();
-        BOSS_HEALTH.drawConcatenate(String.valueOf(Math.round(boss.getHealth() * 100)));
+    public void drawWorld(LayeredRenderer renderer, double alpha) {
+        super.drawWorld(renderer, alpha);
+        renderer.setLayer(LayeredRenderer.TERRAIN);
+        drawVisible(renderer, flyingPlatforms, alpha);
+        renderer.setLayer(LayeredRenderer.ITEMS);
+        drawVisible(renderer, doubleScores, alpha);
+        drawVisible(renderer, invinciblePowers, alpha);
+        renderer.setLayer(LayeredRenderer.CHARACTERS);
+        drawVisible(renderer, fireballs, alpha);
+        boss.draw(renderer, camera, alpha);
+        renderer.setLayer(LayeredRenderer.HUD);
+        BOSS_HEALTH.drawValue(renderer);
     }
 
     /**
-     * Move all game entities along the x-axis.
-     * @param movingRight Whether the entities are moving right or left.
+     * Update the score, health and boss health shown on the screen.
      */
     @Override
-    public void moveEntitiesX(boolean movingRight) {
-        super.moveEntitiesX(movingRight);
-        for (DoubleScorePower d: doubleScores) {
-            d.moveX(movingRight);
-        }
-        for (InvinciblePower i: invinciblePowers) {
-            i.moveX(movingRight);
-        }
-        for (FlyingPlatform f: flyingPlatforms) {
-            f.moveX(movingRight);
-        }
-        for (Fireball f: fireballs) {
-            f.moveX(movingRight);
-        }
-        boss.moveX(movingRight);
+    protected void updateHud() {
+        super.updateHud();
+        BOSS_HEALTH.setValue(Math.round(boss.getHealth() * 100));
     }
 
     /**
@@ -155,36 +183,181 @@ public class Level3 extends Level {
     public void checkCollectibleCollisions() {
         super.checkCollectibleCollisions();
         // Check for player collision with double score powerups
-        for (DoubleScorePower d: new ArrayList<>(doubleScores)) {
+        for (DoubleScorePower d: doubleScoreGrid.queryNear(player)) {
             if (player.collidedWith(d)) {
                 player.setScoreMultiplier(DoubleScorePower.getScoreMultiplier());
                 framesOfDoubleScoreRemaining = d.getDuration();
                 d.setCollected(true);
-            }
-            if (d.isCollected()) {
-                d.playCollectAnimation();
-                if (d.isOffScreen()) {
-                    doubleScores.remove(d);
-                }
+                doubleScoreGrid.remove(d);
+                collectedDoubleScores.add(d);
             }
         }
+        animateCollected(collectedDoubleScores, doubleScores);
         // Check for collision with invincibility powerups
-        for (InvinciblePower i: new ArrayList<>(invinciblePowers)) {
+        for (InvinciblePower i: invinciblePowerGrid.queryNear(player)) {
             if (player.collidedWith(i)) {
                 player.setInvincible(true);
                 framesOfInvincibilityRemaining = i.getDuration();
                 i.setCollected(true);
-            }
-            if (i.isCollected()) {
-                i.playCollectAnimation();
-                if (i.isOffScreen()) {
-                    invinciblePowers.remove(i);
-                }
+                invinciblePowerGrid.remove(i);
+                collectedInvinciblePowers.add(i);
             }
         }
+        animateCollected(collectedInvinciblePowers, invinciblePowers);
         updatePowerUpDurations();
     }
 
+    /**
+     * Create an entity from the level file and add it to the level.
+     * @param type The type of entity to create.
+     * @param record The index of the entity's record in the level file.
+     * @param x The initial x coordinate of the entity.
+     * @param y The initial y coordinate of the entity.
+     * @return The entity created, or null if this level has no entities of that type.
+     */
+    @Override
+    protected Entity spawn(EntityType type, int record, int x, int y) {
+        switch (type) {
+            case ENEMY_BOSS:
+                boss = new Boss(entityStore, config, x, y, random.forBoss());
+                return boss;
+            case DOUBLE_SCORE:
+                DoubleScorePower d = new DoubleScorePower(entityStore, config, x, y);
+                doubleScores.add(d);
+                doubleScoreGrid.add(d);
+                return d;
+            case INVINCIBLE_POWER:
+                InvinciblePower i = new InvinciblePower(entityStore, config, x, y);
+                invinciblePowers.add(i);
+                invinciblePowerGrid.add(i);
+                return i;
+            case FLYING_PLATFORM:
+                FlyingPlatform f = new FlyingPlatform(entityStore, config, x, y, random.forEntity(record));
+                f.fastForward(ticks);
+                flyingPlatforms.add(f);
+                flyingPlatformIndex.add(f);
+                return f;
+            default:
+                return super.spawn(type, record, x, y);
+        }
+    }
+
+    /**
+     * Remove an entity created by spawn from the level, releasing its image.
+     * Does nothing if the entity has already been removed from the level.
+     * @param type The type of entity given to spawn.
+     * @param entity The entity to remove.
+     */
+    @Override
+    protected void despawn(EntityType type, Entity entity) {
+        boolean removed;
+        switch (type) {
+            case DOUBLE_SCORE:
+                removed = doubleScores.remove(entity);
+                doubleScoreGrid.remove((DoubleScorePower) entity);
+                collectedDoubleScores.remove(entity);
+                break;
+            case INVINCIBLE_POWER:
+                removed = invinciblePowers.remove(entity);
+                invinciblePowerGrid.remove((InvinciblePower) entity);
+                collectedInvinciblePowers.remove(entity);
+                break;
+            case FLYING_PLATFORM:
+                removed = flyingPlatforms.remove(entity);
+                flyingPlatformIndex.remove((FlyingPlatform) entity);
+                break;
+            default:
+                super.despawn(type, entity);
+                return;
+        }
+        if (removed) {
+            entity.dispose();
+        }
+    }
+
+    /**
+     * Write the level's state, including the boss, the fireballs in flight and how long the player's powerups
+     * have left.
+     * @param out Where to write the level's state.
+     * @throws IOException If the state can't be written.
+     */
+    @Override
+    public void writeState(DataOutput out) throws IOException {
+        super.writeState(out);
+        out.writeInt(framesOfDoubleScoreRemaining);
+        out.writeInt(framesOfInvincibilityRemaining);
+        boss.writeState(out);
+        fireballPool.writeState(out);
+        // The fireballs in flight, in the order they are moved and checked for collisions
+        out.writeInt(fireballs.size());
+        for (Fireball f: fireballs) {
+            out.writeInt(fireballPool.indexOf(f));
+        }
+    }
+
+    /**
+     * Put the level back into the state written by writeState.
+     * @param in Where to read the level's state from.
+     * @throws IOException If the state can't be read, or was written by a different level.
+     */
+    @Override
+    public void readState(DataInput in) throws IOException {
+        super.readState(in);
+        framesOfDoubleScoreRemaining = in.readInt();
+        framesOfInvincibilityRemaining = in.readInt();
+        boss.readState(in);
+        for (Fireball f: fireballs) {
+            fireballGrid.remove(f);
+        }
+        fireballs.clear();
+        fireballPool.readState(in);
+        int inFlight = in.readInt();
+        for (int i = 0; i < inFlight; i++) {
+            int index = in.readInt();
+            if (index < 0 || index >= config.FIREBALL_POOL_CAPACITY) {
+                throw new IOException("There is no fireball " + index + " in the pool");
+            }
+            Fireball f = fireballPool.get(index);
+            if (fireballs.contains(f)) {
+                throw new IOException("Fireball " + index + " was saved twice");
+            }
+            fireballs.add(f);
+            fireballGrid.add(f);
+        }
+        updateHud();
+    }
+
+    /**
+     * Read back the state of an entity which was streamed in, and put it back where it belongs in the level.
+     * @param type The type of entity given to spawn.
+     * @param entity The entity, which spawn has just created.
+     * @param in Where to read the entity's state from.
+     * @throws IOException If the state can't be read.
+     */
+    @Override
+    protected void readEntityState(EntityType type, Entity entity, DataInput in) throws IOException {
+        switch (type) {
+            case DOUBLE_SCORE:
+                DoubleScorePower d = (DoubleScorePower) entity;
+                d.readState(in);
+                if (d.isCollected()) {
+                    doubleScoreGrid.remove(d);
+                    collectedDoubleScores.add(d);
+                }
+                break;
+            case INVINCIBLE_POWER:
+                InvinciblePower i = (InvinciblePower) entity;
+                i.readState(in);
+                if (i.isCollected()) {
+                    invinciblePowerGrid.remove(i);
+                    collectedInvinciblePowers.add(i);
+                }
+                break;
+            default:
+                super.readEntityState(type, entity, in);
+        }
+    }
+
     /**
      * Update how long powerups have left.
      */
@@ -203,63 +376,53 @@ public class Level3 extends Level {
         }
     }
 
+    /**
+     * Release every entity's image back to the shared asset registry.
+     */
+    @Override
+    public void dispose() {
+        super.dispose();
+        for (DoubleScorePower d: doubleScores) {
+            d.dispose();
+        }
+        for (InvinciblePower i: invinciblePowers) {
+            i.dispose();
+        }
+        for (FlyingPlatform f: flyingPlatforms) {
+            f.dispose();
+        }
+        fireballPool.dispose();
+        boss.dispose();
+    }
+
     /**
      * Default constructor for level 3.
-     * @param game_props Properties file containing game information.
-     * @param message_props Properties file containing information about text.
+     * @param config The game's settings.
+     * @param seed The seed for every random choice made in the level.
      */
-    public Level3(Properties game_props, Properties message_props) {
-        super(game_props, message_props);
-        final String FONT = game_props.getProperty("font");
+    public Level3(GameConfig config, long seed) {
+        super(config, seed);
         BOSS_HEALTH = new Text(
-                message_props.getProperty("health"),
-                new Font(FONT, Integer.parseInt(game_props.getProperty("enemyBossHealth.fontSize"))),
-                Integer.parseInt(game_props.getProperty("enemyBossHealth.x")),
-                Integer.parseInt(game_props.getProperty("enemyBossHealth.y")),
+                config.HEALTH_MESSAGE,
+                Assets.getFont(config.FONT, config.BOSS_HEALTH.FONT_SIZE),
+                config.BOSS_HEALTH.X,
+                config.BOSS_HEALTH.Y,
                 Colour.RED
         );
 
-        boss = null;
-        fireballs = new ArrayList<>();
-        flyingPlatforms = new ArrayList<>();
-        doubleScores = new ArrayList<>();
-        invinciblePowers = new ArrayList<>();
+        fireballs = newPool();
+        fireballGrid = new SpatialGrid<>(GRID_CELL_SIZE);
+        fireballPool = new FireballPool(entityStore, config, config.FIREBALL_POOL_CAPACITY,
+                config.FIREBALL_OVERFLOW_POLICY);
+        flyingPlatforms = newPool();
+        flyingPlatformIndex = new PlatformIndex();
+        doubleScores = newPool();
+        invinciblePowers = newPool();
+        doubleScoreGrid = new SpatialGrid<>(GRID_CELL_SIZE);
+        invinciblePowerGrid = new SpatialGrid<>(GRID_CELL_SIZE);
+        collectedDoubleScores = newPool();
+        collectedInvinciblePowers = newPool();
 
-        String level_file = game_props.getProperty("level3File");
-        final ArrayList<String[]> LEVEL_INFO = main.IOUtils.readCsv(level_file);
-        // Save info for easier access
-        for (String[] line: LEVEL_INFO) {
-            int x = Integer.parseInt(line[1]);
-            int y = Integer.parseInt(line[2]);
-            switch (line[0]) {
-                case "PLATFORM":
-                    platform = new Platform(x, y);
-                    break;
-                case "PLAYER":
-                    player = new Player(x, y);
-                    break;
-                case "COIN":
-                    coins.add(new Coin(x, y));
-                    break;
-                case "ENEMY":
-                    enemies.add(new Enemy(x, y));
-                    break;
-                case "END_FLAG":
-                    endFlag = new EndFlag(x, y);
-                    break;
-                case "DOUBLE_SCORE":
-                    doubleScores.add(new DoubleScorePower(x, y));
-                    break;
-                case "INVINCIBLE_POWER":
-                    invinciblePowers.add(new InvinciblePower(x, y));
-                    break;
-                case "ENEMY_BOSS":
-                    boss = new Boss(x, y);
-                    break;
-                case "FLYING_PLATFORM":
-                    flyingPlatforms.add(new FlyingPlatform(x, y));
-                    break;
-            }
-        }
+        loadLevel(config.getLevelFile(3));
     }
 }
@@ -0,0 +1,33 @@
+package levels;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Converts CSV level files into compiled level files, which load without any parsing.
+ * Usage: LevelCompiler input.csv output.lvl [chunkWidth]
+ */
+public class LevelCompiler {
+    private static final int DEFAULT_CHUNK_WIDTH = 1024;
+
+    /**
+     * Compile a CSV level file.
+     * @param args The CSV level file, where to write the compiled level file, and optionally the chunk width of the
+     *             compiled file's index.
+     * @throws IOException If the compiled level file couldn't be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: LevelCompiler input.csv output" + BinaryLevelSource.EXTENSION + " [chunkWidth]");
+            System.exit(-1);
+        }
+        int chunkWidth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CHUNK_WIDTH;
+        if (chunkWidth <= 0) {
+            System.out.println("The chunk width should be at least 1, not " + chunkWidth);
+            System.exit(-1);
+        }
+        LevelSource source = new CsvLevelSource(args[0]);
+        BinaryLevelSource.write(source, Paths.get(args[1]), chunkWidth);
+        System.out.println("Compiled " + source.size() + " entities from " + args[0] + " into " + args[1]);
+    }
+}
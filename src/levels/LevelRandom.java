@@ -0,0 +1,77 @@
+package levels;
+
+import java.util.SplittableRandom;
+
+/**
+ * The source of every random choice made in a level, so the same seed and the same input always play out the same.
+ * Each entity in the level file gets its own stream, derived from the seed and the entity's record in the file, so
+ * an entity makes the same choices whenever it is created, no matter which order entities are streamed in or how
+ * often it is unloaded and loaded again. The boss has a seed of its own.
+ */
+public class LevelRandom {
+    private static final long ENTITY_STREAM = 1;
+    private static final long BOSS_STREAM = 2;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private final long SEED;
+
+    /**
+     * Get the seed the level's random choices are made from.
+     * @return The level's seed.
+     */
+    public long getSeed() {
+        return SEED;
+    }
+
+    /**
+     * Get the random stream for an entity in the level file.
+     * @param record The index of the entity's record in the level file.
+     * @return A new random stream, which gives the same values every time it is created for the same record.
+     */
+    public SplittableRandom forEntity(int record) {
+        return new SplittableRandom(mix(SEED, ENTITY_STREAM, record));
+    }
+
+    /**
+     * Get the seed for the boss's random choices.
+     * The boss makes its own draws from the seed, so it can restore them from a saved count without a stream.
+     * @return The boss's seed, which is the same every time for the same level seed.
+     */
+    public long forBoss() {
+        return mix(SEED, BOSS_STREAM, 0);
+    }
+
+    /**
+     * Make a random choice from a seed and the choice's place in the seed's sequence.
+     * Any choice can be made without making the ones before it, so something which only keeps how many choices it
+     * has made can be saved and restored without a random stream.
+     * @param seed The seed, such as the one returned by forBoss.
+     * @param n The choice's place in the sequence.
+     * @return The choice, which is the same every time for the same seed and place.
+     */
+    public static boolean draw(long seed, long n) {
+        return scramble(seed + n * GOLDEN_GAMMA) < 0;
+    }
+
+    // Combine the seed with a stream and an index, so that nearby streams and indices give unrelated seeds
+    private static long mix(long seed, long stream, long index) {
+        long z = seed;
+        z = scramble(z ^ scramble(stream * 0x9E3779B97F4A7C15L));
+        z = scramble(z ^ scramble(index * 0xC2B2AE3D27D4EB4FL + 1));
+        return z;
+    }
+
+    // The finaliser from SplitMix64, which spreads every bit of its input over every bit of its output
+    private static long scramble(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Default constructor for the level's random choices.
+     * @param seed The seed the level's random choices are made from.
+     */
+    public LevelRandom(long seed) {
+        this.SEED = seed;
+    }
+}
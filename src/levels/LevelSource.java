@@ -0,0 +1,80 @@
+package levels;
+
+/**
+ * The entities described by a level file, sorted along the x-axis.
+ */
+public interface LevelSource {
+    /**
+     * Get how many entities the level file describes.
+     * @return How many entities the level file describes.
+     */
+    int size();
+
+    /**
+     * Get the type of an entity.
+     * @param index The entity's position in x order.
+     * @return The entity's type.
+     */
+    EntityType getType(int index);
+
+    /**
+     * Get the initial x coordinate of an entity.
+     * @param index The entity's position in x order.
+     * @return The entity's initial x coordinate.
+     */
+    int getX(int index);
+
+    /**
+     * Get the initial y coordinate of an entity.
+     * @param index The entity's position in x order.
+     * @return The entity's initial y coordinate.
+     */
+    int getY(int index);
+
+    /**
+     * Get how many entities exist for the whole level rather than being streamed, such as the player and the end
+     * flag.
+     * @return How many entities aren't streamed.
+     */
+    int getPermanentCount();
+
+    /**
+     * Get one of the entities which exist for the whole level, so they can be created without looking through every
+     * entity in the level file.
+     * @param i Which of those entities to get, from 0 to getPermanentCount() - 1, in x order.
+     * @return The entity's position in x order.
+     */
+    int getPermanentRecord(int i);
+
+    /**
+     * Find the first entity at or to the right of an x coordinate.
+     * @param x The x coordinate to search from.
+     * @return The index of the first entity whose x coordinate is at least x, or size() if there is none.
+     */
+    default int firstAtOrAfter(int x) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getX(mid) < x) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Open a level file, which may be a compiled level file or a CSV file.
+     * @param levelFile The path to the level file.
+     * @return The entities in the level file.
+     */
+    static LevelSource open(String levelFile) {
+        if (levelFile.endsWith(BinaryLevelSource.EXTENSION)) {
+            return new BinaryLevelSource(levelFile);
+        }
+        return new CsvLevelSource(levelFile);
+    }
+}
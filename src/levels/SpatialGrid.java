@@ -0,0 +1,271 @@
+package levels;
+
+import entities.Entity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A uniform grid over world coordinates, used to find the entities near another entity without checking every
+ * entity in the level.
+ * Entities which move must be passed to update() afterwards so they stay in the right cell.
+ * Only cells with entities in them are kept, in an open-addressing table keyed on the cell's coordinates. Each entity
+ * remembers its cell and its index in that cell, so adding, moving and removing an entity take constant time, and
+ * once the grid has grown to fit the level nothing is allocated.
+ * An entity can only be in one grid at a time.
+ * @param <T> The type of entity stored in the grid.
+ */
+public class SpatialGrid<T extends Entity> {
+    private static final int INITIAL_TABLE_CAPACITY = 64;
+    private static final int INITIAL_CELL_CAPACITY = 4;
+    private static final int NO_CELL = -1;
+    private final int CELL_SIZE;
+    private final ArrayList<T> nearby = new ArrayList<>();
+    // Open-addressing table from cell coordinates to cell ids, using linear probing
+    private long[] tableKeys = new long[INITIAL_TABLE_CAPACITY];
+    private int[] tableCells = new int[INITIAL_TABLE_CAPACITY];
+    private int tableCount = 0;
+    // Cells by id. Ids stay the same while a cell has entities in it, and are reused once it is empty
+    private long[] cellKeys = new long[INITIAL_TABLE_CAPACITY / 2];
+    private Entity[][] cellMembers = new Entity[INITIAL_TABLE_CAPACITY / 2][];
+    private int[] cellSizes = new int[INITIAL_TABLE_CAPACITY / 2];
+    private int[] freeCells = new int[INITIAL_TABLE_CAPACITY / 2];
+    private int freeCellCount = 0;
+    private int cellHighWater = 0;
+    private int size = 0;
+    private double maxRadius = 0;
+
+    /**
+     * Get how many entities are in the grid.
+     * @return How many entities are in the grid.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add an entity to the grid.
+     * @param entity The entity to add.
+     */
+    public void add(T entity) {
+        addToCell(cellAt(cellKeyAt(entity.getX(), entity.getY())), entity);
+        size++;
+        maxRadius = Math.max(maxRadius, entity.getRadius());
+    }
+
+    /**
+     * Remove an entity from the grid.
+     * @param entity The entity to remove.
+     */
+    public void remove(T entity) {
+        if (!contains(entity)) {
+            return;
+        }
+        removeFromCell(entity);
+        entity.setGridPosition(NO_CELL, -1);
+        size--;
+    }
+
+    /**
+     * Move an entity to the correct cell after it has moved.
+     * @param entity The entity which has moved.
+     */
+    public void update(T entity) {
+        if (!contains(entity)) {
+            return;
+        }
+        long newKey = cellKeyAt(entity.getX(), entity.getY());
+        if (cellKeys[entity.getGridCell()] != newKey) {
+            removeFromCell(entity);
+            addToCell(cellAt(newKey), entity);
+        }
+    }
+
+    /**
+     * Check whether an entity is in the grid.
+     * An entity which has been disposed of is never in the grid, even if its slot has been given to an entity which
+     * is.
+     * @param entity The entity to look for.
+     * @return Whether the entity is in the grid.
+     */
+    public boolean contains(Entity entity) {
+        int cell = entity.getGridCell();
+        int slot = entity.getGridSlot();
+        return cell >= 0 && cell < cellHighWater && slot >= 0 && slot < cellSizes[cell]
+                && cellMembers[cell][slot] == entity;
+    }
+
+    /**
+     * Find every entity in the grid which is close enough that it might be colliding with another entity.
+     * The returned list is reused by the next query, so it shouldn't be kept.
+     * @param entity The entity to search around.
+     * @return Every entity in the cells within collision range of the given entity.
+     */
+    @SuppressWarnings("unchecked")
+    public ArrayList<T> queryNear(Entity entity) {
+        nearby.clear();
+        if (size == 0) {
+            return nearby;
+        }
+        double range = entity.getRadius() + maxRadius;
+        int minCellX = Math.floorDiv((int) Math.floor(entity.getX() - range), CELL_SIZE);
+        int maxCellX = Math.floorDiv((int) Math.ceil(entity.getX() + range), CELL_SIZE);
+        int minCellY = Math.floorDiv((int) Math.floor(entity.getY() - range), CELL_SIZE);
+        int maxCellY = Math.floorDiv((int) Math.ceil(entity.getY() + range), CELL_SIZE);
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                int cell = findCell(cellKey(cellX, cellY));
+                if (cell != NO_CELL) {
+                    Entity[] members = cellMembers[cell];
+                    for (int i = 0, count = cellSizes[cell]; i < count; i++) {
+                        nearby.add((T) members[i]);
+                    }
+                }
+            }
+        }
+        return nearby;
+    }
+
+    private void addToCell(int cell, Entity entity) {
+        int slot = cellSizes[cell]++;
+        if (slot == cellMembers[cell].length) {
+            cellMembers[cell] = Arrays.copyOf(cellMembers[cell], slot * 2);
+        }
+        cellMembers[cell][slot] = entity;
+        entity.setGridPosition(cell, slot);
+    }
+
+    private void removeFromCell(Entity entity) {
+        int cell = entity.getGridCell();
+        int slot = entity.getGridSlot();
+        Entity[] members = cellMembers[cell];
+        int last = --cellSizes[cell];
+        // Swap the last entity in the cell into the removed entity's place
+        if (slot != last) {
+            members[slot] = members[last];
+            members[slot].setGridPosition(cell, slot);
+        }
+        members[last] = null;
+        if (last == 0) {
+            removeCell(cell);
+        }
+    }
+
+    // Find the cell with the given key, creating it if it doesn't exist yet
+    private int cellAt(long key) {
+        int mask = tableKeys.length - 1;
+        int index = hash(key) & mask;
+        while (tableCells[index] != NO_CELL) {
+            if (tableKeys[index] == key) {
+                return tableCells[index];
+            }
+            index = (index + 1) & mask;
+        }
+        int cell = newCell(key);
+        tableKeys[index] = key;
+        tableCells[index] = cell;
+        // Keep the table at most half full, so probes stay short
+        if (++tableCount * 2 > tableKeys.length) {
+            growTable();
+        }
+        return cell;
+    }
+
+    private int findCell(long key) {
+        int mask = tableKeys.length - 1;
+        int index = hash(key) & mask;
+        while (tableCells[index] != NO_CELL) {
+            if (tableKeys[index] == key) {
+                return tableCells[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return NO_CELL;
+    }
+
+    private int newCell(long key) {
+        int cell;
+        if (freeCellCount > 0) {
+            cell = freeCells[--freeCellCount];
+        }
+        else {
+            if (cellHighWater == cellKeys.length) {
+                int capacity = cellKeys.length * 2;
+                cellKeys = Arrays.copyOf(cellKeys, capacity);
+                cellMembers = Arrays.copyOf(cellMembers, capacity);
+                cellSizes = Arrays.copyOf(cellSizes, capacity);
+                freeCells = Arrays.copyOf(freeCells, capacity);
+            }
+            cell = cellHighWater++;
+            cellMembers[cell] = new Entity[INITIAL_CELL_CAPACITY];
+        }
+        cellKeys[cell] = key;
+        cellSizes[cell] = 0;
+        return cell;
+    }
+
+    private void removeCell(int cell) {
+        int mask = tableKeys.length - 1;
+        int index = hash(cellKeys[cell]) & mask;
+        while (tableCells[index] != cell) {
+            index = (index + 1) & mask;
+        }
+        // Shift later entries of the probe run back into the gap, so lookups never stop at it early
+        int next = (index + 1) & mask;
+        while (tableCells[next] != NO_CELL) {
+            int home = hash(tableKeys[next]) & mask;
+            // Only move entries whose probe run started at or before the gap
+            if (((next - home) & mask) >= ((next - index) & mask)) {
+                tableKeys[index] = tableKeys[next];
+                tableCells[index] = tableCells[next];
+                index = next;
+            }
+            next = (next + 1) & mask;
+        }
+        tableCells[index] = NO_CELL;
+        tableCount--;
+        // The cell keeps its array, ready for the next cell to use its id
+        freeCells[freeCellCount++] = cell;
+    }
+
+    private void growTable() {
+        long[] oldKeys = tableKeys;
+        int[] oldCells = tableCells;
+        tableKeys = new long[oldKeys.length * 2];
+        tableCells = new int[oldCells.length * 2];
+        Arrays.fill(tableCells, NO_CELL);
+        int mask = tableKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCells[i] != NO_CELL) {
+                int index = hash(oldKeys[i]) & mask;
+                while (tableCells[index] != NO_CELL) {
+                    index = (index + 1) & mask;
+                }
+                tableKeys[index] = oldKeys[i];
+                tableCells[index] = oldCells[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private long cellKeyAt(int x, int y) {
+        return cellKey(Math.floorDiv(x, CELL_SIZE), Math.floorDiv(y, CELL_SIZE));
+    }
+
+    private static long cellKey(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Default constructor for the grid.
+     * @param cellSize The width and height of each cell in the grid.
+     */
+    public SpatialGrid(int cellSize) {
+        this.CELL_SIZE = cellSize;
+        Arrays.fill(tableCells, NO_CELL);
+    }
+}
@@ -0,0 +1,139 @@
+package main;
+
+import bagel.Font;
+import bagel.Image;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry of images shared between entities.
+ * Each file is only loaded once, no matter how many entities use it. Images are reference counted,
+ * and are unloaded once every entity using them has been disposed of.
+ * In headless mode nothing is loaded or counted, and null is handed out in place of every image and font.
+ * Every image and font is given an id when it is loaded, so renderers can sort what they draw by texture without
+ * looking textures up in a map of their own every frame.
+ */
+public class Assets {
+    private static final ConcurrentHashMap<String, SharedImage> IMAGES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, Font> FONTS = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Object, Integer> TEXTURE_IDS = new ConcurrentHashMap<>();
+    private static final int TEXTURE_ID_MASK = (1 << 24) - 1;
+    private static final AtomicInteger NEXT_TEXTURE_ID = new AtomicInteger(1);
+    private static volatile boolean headless = false;
+
+    /**
+     * An image and how many entities are using it.
+     */
+    private static final class SharedImage {
+        private final Image IMAGE;
+        // Only changed inside the map's compute calls, which lock the image's entry
+        private int references = 0;
+
+        private SharedImage(Image image) {
+            this.IMAGE = image;
+        }
+    }
+
+    /**
+     * Get whether assets are being loaded without a window.
+     * @return Whether assets are being loaded without a window.
+     */
+    public static boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * Update whether assets should be loaded, or skipped because there is no window to draw them in.
+     * Must be set before any level is created.
+     * @param isHeadless Whether the game is running without a window.
+     */
+    public static void setHeadless(boolean isHeadless) {
+        headless = isHeadless;
+    }
+
+    /**
+     * Get the shared image for a file, loading it if no one else is using it yet.
+     * Every call should be matched by a call to releaseImage once the image is no longer needed.
+     * Only locks the file's own entry, and in headless mode returns straight away without counting anything, so
+     * headless games running in parallel never wait for each other.
+     * @param path The path to the image file.
+     * @return The shared image, or null in headless mode.
+     */
+    public static Image acquireImage(String path) {
+        if (headless) {
+            return null;
+        }
+        return IMAGES.compute(path, (key, shared) -> {
+            if (shared == null) {
+                shared = new SharedImage(new Image(path));
+                TEXTURE_IDS.put(shared.IMAGE, NEXT_TEXTURE_ID.getAndIncrement());
+            }
+            shared.references++;
+            return shared;
+        }).IMAGE;
+    }
+
+    /**
+     * Give up a reference to a shared image, unloading it if no one else is using it.
+     * Does nothing in headless mode.
+     * @param path The path to the image file.
+     */
+    public static void releaseImage(String path) {
+        if (headless) {
+            return;
+        }
+        IMAGES.computeIfPresent(path, (key, shared) -> {
+            if (--shared.references > 0) {
+                return shared;
+            }
+            TEXTURE_IDS.remove(shared.IMAGE);
+            return null;
+        });
+    }
+
+    /**
+     * Get a font at a given size, loading it if it hasn't been used at that size before.
+     * @param path The path to the font file.
+     * @param size The font size.
+     * @return The shared font, or null in headless mode.
+     */
+    public static Font getFont(String path, int size) {
+        if (headless) {
+            return null;
+        }
+        return FONTS.computeIfAbsent(path + "@" + size, k -> {
+            Font font = new Font(path, size);
+            TEXTURE_IDS.put(font, NEXT_TEXTURE_ID.getAndIncrement());
+            return font;
+        });
+    }
+
+    /**
+     * Get the id given to an image or font when it was loaded.
+     * Ids are only reused once about 16 million textures have been loaded, so two textures may share an id, and
+     * renderers must still check a texture is the same before drawing it with another.
+     * Doesn't lock, so it can be called for every sprite drawn.
+     * @param texture The image or font, which may be null in headless mode.
+     * @return The texture's id, or 0 for null. A texture which wasn't loaded through the registry is given an id the
+     *         first time it is asked about.
+     */
+    public static int getTextureId(Object texture) {
+        if (texture == null) {
+            return 0;
+        }
+        Integer id = TEXTURE_IDS.get(texture);
+        if (id == null) {
+            id = TEXTURE_IDS.computeIfAbsent(texture, k -> NEXT_TEXTURE_ID.getAndIncrement());
+        }
+        return id & TEXTURE_ID_MASK;
+    }
+
+    /**
+     * Get how many distinct images are currently loaded.
+     * @return How many distinct images are currently loaded.
+     */
+    public static int getLoadedImageCount() {
+        return IMAGES.size();
+    }
+}
@@ -0,0 +1,114 @@
+package main;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Saves the level being played every few seconds of game time.
+ * The game's state is captured on the thread which ticks it, between ticks, so it is always consistent. Writing the
+ * file happens on a thread of its own, so a slow disk never holds up a tick. If saves are captured faster than they
+ * can be written, only the newest is written.
+ */
+public class Autosaver {
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+    private final Path PATH;
+    private final int LEVEL_NUM;
+    private final String LEVEL_FILE;
+    private final int INTERVAL_TICKS;
+    private final AtomicReference<SaveGame> PENDING = new AtomicReference<>();
+    private final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "autosave");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile long lastCaptureNanos = 0;
+
+    /**
+     * Get how long capturing the game's state took the last time it was saved.
+     * @return How long the last capture took, in nanoseconds.
+     */
+    public long getLastCaptureNanos() {
+        return lastCaptureNanos;
+    }
+
+    /**
+     * Save the game if it has been played for a whole number of autosave intervals.
+     * Should be called after every tick, from the thread which ticks the game.
+     * @param session The game being played.
+     */
+    public void afterTick(GameSession session) {
+        if (INTERVAL_TICKS > 0 && session.getTicks() % INTERVAL_TICKS == 0) {
+            save(session);
+        }
+    }
+
+    /**
+     * Save the game now. The file is written in the background.
+     * Must be called from the thread which ticks the game, or while the game isn't being ticked.
+     * @param session The game being played.
+     */
+    public void save(GameSession session) {
+        long start = System.nanoTime();
+        SaveGame save = SaveGame.capture(session, LEVEL_NUM, LEVEL_FILE);
+        lastCaptureNanos = System.nanoTime() - start;
+        // Only queue a write if there isn't one waiting already, which will pick up this save instead
+        if (PENDING.getAndSet(save) == null) {
+            WRITER.execute(this::writePending);
+        }
+    }
+
+    private void writePending() {
+        SaveGame save = PENDING.getAndSet(null);
+        if (save == null) {
+            return;
+        }
+        try {
+            save.write(PATH);
+        } catch (IOException e) {
+            System.err.println("Couldn't save the game to " + PATH + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop autosaving, waiting for any save still being written to finish.
+     */
+    public void close() {
+        WRITER.shutdown();
+        try {
+            WRITER.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stop autosaving and delete the saved game, since the game it saved is over.
+     */
+    public void discard() {
+        close();
+        try {
+            Files.deleteIfExists(PATH);
+        } catch (IOException e) {
+            System.err.println("Couldn't delete the saved game " + PATH + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Default constructor for the autosaver.
+     * @param path The file to save the game to.
+     * @param levelNum Which number level is being played.
+     * @param levelFile The path to the level file the level was created from.
+     * @param intervalTicks How many ticks apart to save the game, or 0 to only save it when save is called.
+     */
+    public Autosaver(Path path, int levelNum, String levelFile, int intervalTicks) {
+        this.PATH = path;
+        this.LEVEL_NUM = levelNum;
+        this.LEVEL_FILE = levelFile;
+        this.INTERVAL_TICKS = intervalTicks;
+    }
+}
@@ -0,0 +1,121 @@
+package main;
+
+import java.util.Properties;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Plays many headless games in parallel, e.g. to see how changing a setting in app.properties affects the game.
+ * Every game gets its own level, and its own seed for both its level and its input policy, so any game in a batch
+ * can be played again exactly. Results are added to the totals in the order games finish, so progress can be
+ * reported while the rest are still running.
+ * Usage: BatchRunner level levelFile policy games [maxTicks] [threads]
+ * where policy is "scripted" or "random".
+ */
+public class BatchRunner {
+    private static final long REPORT_INTERVAL_NANOS = 1_000_000_000L;
+    /**
+     * How many games are queued per thread at once, so the pool never runs out of work while results are added.
+     */
+    private static final int GAMES_IN_FLIGHT_PER_THREAD = 4;
+
+    /**
+     * The outcome of a single game.
+     */
+    private static final class GameResult {
+        private final GameState GAME_STATE;
+        private final int TICKS;
+        private final int SCORE;
+
+        private GameResult(GameSession session) {
+            this.GAME_STATE = session.getGameState();
+            this.TICKS = session.getTicks();
+            this.SCORE = session.getLevel().getPlayer().getScore();
+        }
+    }
+
+    /**
+     * Play a batch of games.
+     * @param levelNum Which number level to play.
+     * @param config The game's settings.
+     * @param policyName The name of the input policy each game is played with.
+     * @param games How many games to play. Game i is played with seed i.
+     * @param maxTicks How many ticks to play each game before giving up.
+     * @param pool The pool to play the games on.
+     * @param onResult Called with the totals each time a game finishes, from the calling thread.
+     * @return The totals for every game.
+     * @throws InterruptedException If the calling thread is interrupted while waiting for games to finish.
+     */
+    public static BatchStats run(int levelNum, GameConfig config, String policyName, int games, int maxTicks,
+                                 ForkJoinPool pool, Consumer<BatchStats> onResult) throws InterruptedException {
+        // Fail on a bad policy name straight away, rather than once per game
+        InputPolicy.forName(policyName, 0);
+        CompletionService<GameResult> results = new ExecutorCompletionService<>(pool);
+        BatchStats stats = new BatchStats();
+        int maxInFlight = pool.getParallelism() * GAMES_IN_FLIGHT_PER_THREAD;
+        int submitted = 0;
+        while (stats.getGames() < games) {
+            while (submitted < games && submitted - stats.getGames() < maxInFlight) {
+                long seed = submitted++;
+                results.submit(() -> new GameResult(
+                        HeadlessRunner.play(levelNum, maxTicks, config, InputPolicy.forName(policyName, seed), seed)));
+            }
+            GameResult result;
+            try {
+                result = results.take().get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A game failed", e.getCause());
+            }
+            stats.add(result.GAME_STATE, result.TICKS, result.SCORE);
+            onResult.accept(stats);
+        }
+        return stats;
+    }
+
+    /**
+     * The entry point for running a batch of games.
+     * @param args The level number, the level file, the input policy, the number of games, and optionally the tick
+     *             limit per game and the number of threads.
+     * @throws Exception If the settings can't be read, or the batch is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println("Usage: BatchRunner level levelFile scripted|random games [maxTicks] [threads]");
+            System.exit(1);
+        }
+        int levelNum = Integer.parseInt(args[0]);
+        String levelFile = args[1];
+        String policyName = args[2];
+        int games = Integer.parseInt(args[3]);
+        int maxTicks = args.length > 4 ? Integer.parseInt(args[4]) : 10000;
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+
+        Assets.setHeadless(true);
+        Properties game_props = IOUtils.readPropertiesFile(GameConfig.GAME_FILE);
+        Properties message_props = IOUtils.readPropertiesFile(GameConfig.MESSAGE_FILE);
+        game_props.setProperty("level" + levelNum + "File", levelFile);
+        GameConfig config = new GameConfig(game_props, message_props);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        long[] lastReport = {start};
+        BatchStats stats;
+        try {
+            stats = run(levelNum, config, policyName, games, maxTicks, pool, s -> {
+                long now = System.nanoTime();
+                if (now - lastReport[0] >= REPORT_INTERVAL_NANOS) {
+                    lastReport[0] = now;
+                    System.out.println(s.summarise(config.TICKS_PER_SECOND));
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(stats.summarise(config.TICKS_PER_SECOND));
+        System.out.printf("level %d on %d threads: %.0f games/s%n", levelNum, threads, games / seconds);
+    }
+}
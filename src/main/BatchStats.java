@@ -0,0 +1,102 @@
+package main;
+
+import java.util.Arrays;
+
+/**
+ * Running totals for a batch of headless games: how many were won, how long they took and what they scored.
+ * Not thread safe; results should be added from one thread.
+ */
+public class BatchStats {
+    private int games = 0;
+    private int won = 0;
+    private int lost = 0;
+    private long winTicksTotal = 0;
+    private int fastestWin = Integer.MAX_VALUE;
+    private int slowestWin = 0;
+    private int[] scoreCounts = new int[64];
+
+    /**
+     * Add the result of one game.
+     * @param gameState How the game ended, or STARTED if it ran out of ticks.
+     * @param ticks How many ticks the game was played for.
+     * @param score The player's score at the end of the game.
+     */
+    public void add(GameState gameState, int ticks, int score) {
+        games++;
+        if (gameState == GameState.WON) {
+            won++;
+            winTicksTotal += ticks;
+            fastestWin = Math.min(fastestWin, ticks);
+            slowestWin = Math.max(slowestWin, ticks);
+        }
+        else if (gameState == GameState.LOST) {
+            lost++;
+        }
+        if (score >= scoreCounts.length) {
+            scoreCounts = Arrays.copyOf(scoreCounts, Math.max(score + 1, scoreCounts.length * 2));
+        }
+        scoreCounts[Math.max(score, 0)]++;
+    }
+
+    /**
+     * Get how many games have been added.
+     * @return How many games have been added.
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Get the fraction of games which were won.
+     * @return The fraction of games which were won, from 0 to 1.
+     */
+    public double getWinRate() {
+        return games == 0 ? 0 : (double) won / games;
+    }
+
+    /**
+     * Get the fraction of games which were lost.
+     * @return The fraction of games which were lost, from 0 to 1.
+     */
+    public double getLossRate() {
+        return games == 0 ? 0 : (double) lost / games;
+    }
+
+    /**
+     * Get how many ticks the games which were won took on average.
+     * @return The mean number of ticks to win, or 0 if no game was won.
+     */
+    public double getMeanTicksToWin() {
+        return won == 0 ? 0 : (double) winTicksTotal / won;
+    }
+
+    /**
+     * Get the lowest score at or above a given fraction of all scores.
+     * @param fraction The fraction of scores to be at or below the result, from 0 to 1, e.g. 0.5 for the median.
+     * @return The score at that percentile, or 0 if there are no games.
+     */
+    public int getScorePercentile(double fraction) {
+        long needed = Math.max(1, (long) Math.ceil(fraction * games));
+        long seen = 0;
+        for (int score = 0; score < scoreCounts.length; score++) {
+            seen += scoreCounts[score];
+            if (seen >= needed) {
+                return score;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Describe the totals on one line.
+     * @param ticksPerSecond How many ticks make a second of game time, for reporting how long wins took.
+     * @return The totals as a line of text.
+     */
+    public String summarise(int ticksPerSecond) {
+        String winTime = won == 0 ? "-" : String.format("%.1fs (%.1f-%.1fs)", getMeanTicksToWin() / ticksPerSecond,
+                (double) fastestWin / ticksPerSecond, (double) slowestWin / ticksPerSecond);
+        return String.format("%d games: %.1f%% won, %.1f%% lost, %d unfinished, time to win %s, score p10/p50/p90 %d/%d/%d",
+                games, getWinRate() * 100, getLossRate() * 100, games - won - lost, winTime,
+                getScorePercentile(0.1), getScorePercentile(0.5), getScorePercentile(0.9));
+    }
+}
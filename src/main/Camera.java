@@ -0,0 +1,142 @@
+package main;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The viewport through which the level is drawn.
+ * Entities keep fixed world coordinates; scrolling only changes the camera's offset,
+ * and entities are projected onto the screen when they are drawn.
+ */
+public class Camera {
+    private final int SCROLL_SPEED;
+    private final int WIDTH;
+    private final int HEIGHT;
+    private int offsetX = 0;
+    private int previousOffsetX = 0;
+
+    /**
+     * Get the width of the area the camera can see.
+     * @return The width of the screen.
+     */
+    public int getWidth() {
+        return WIDTH;
+    }
+
+    /**
+     * Get the height of the area the camera can see.
+     * @return The height of the screen.
+     */
+    public int getHeight() {
+        return HEIGHT;
+    }
+
+    /**
+     * Get how far the camera has scrolled from its starting position.
+     * @return The camera's current x offset, in world coordinates.
+     */
+    public int getOffsetX() {
+        return offsetX;
+    }
+
+    /**
+     * Get how far the camera scrolls in a frame.
+     * @return How far the camera scrolls in a frame.
+     */
+    public int getScrollSpeed() {
+        return SCROLL_SPEED;
+    }
+
+    /**
+     * Scroll the camera along the x-axis by one frame's worth of movement.
+     * @param movingRight Whether the camera should scroll right (true) or left (false).
+     * @return The signed distance the camera moved along the x-axis.
+     */
+    public int scroll(boolean movingRight) {
+        int dx = movingRight ? SCROLL_SPEED : -SCROLL_SPEED;
+        offsetX += dx;
+        return dx;
+    }
+
+    /**
+     * Remember where the camera was at the start of a tick, so drawing can interpolate from there.
+     */
+    public void beginTick() {
+        previousOffsetX = offsetX;
+    }
+
+    /**
+     * Write where the camera is, and where it was at the start of the last tick.
+     * @param out Where to write the camera's state.
+     * @throws IOException If the state can't be written.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(offsetX);
+        out.writeInt(previousOffsetX);
+    }
+
+    /**
+     * Read back the camera's state, as written by writeState.
+     * @param in Where to read the camera's state from.
+     * @throws IOException If the state can't be read.
+     */
+    public void readState(DataInput in) throws IOException {
+        offsetX = in.readInt();
+        previousOffsetX = in.readInt();
+    }
+
+    /**
+     * Convert a world x coordinate to a screen x coordinate.
+     * @param worldX The x coordinate in the world.
+     * @return Where that x coordinate currently appears on the screen.
+     */
+    public int toScreenX(int worldX) {
+        return worldX - offsetX;
+    }
+
+    /**
+     * Check whether a world x coordinate is on the screen, or close to it.
+     * @param worldX The x coordinate in the world.
+     * @param margin How far beyond the edges of the screen still counts as on the screen.
+     * @return Whether the x coordinate is within the margin of the screen.
+     */
+    public boolean isVisible(int worldX, int margin) {
+        int screenX = worldX - offsetX;
+        return screenX >= -margin && screenX <= WIDTH + margin;
+    }
+
+    /**
+     * Work out where to draw something along the x-axis, interpolating between the last two ticks.
+     * @param previousWorldX The x coordinate in the world at the start of the last tick.
+     * @param worldX The x coordinate in the world now.
+     * @param alpha 0 to draw things where they were at the start of the last tick, 1 to draw them where they are now.
+     * @return Where to draw the x coordinate on the screen.
+     */
+    public double projectX(int previousWorldX, int worldX, double alpha) {
+        return interpolate(previousWorldX - previousOffsetX, worldX - offsetX, alpha);
+    }
+
+    /**
+     * Interpolate between a value at the start of the last tick and its value now.
+     * @param previous The value at the start of the last tick.
+     * @param current The value now.
+     * @param alpha 0 to draw things where they were at the start of the last tick, 1 to draw them where they are now.
+     * @return The value to draw with.
+     */
+    public static double interpolate(double previous, double current, double alpha) {
+        return previous + (current - previous) * alpha;
+    }
+
+    /**
+     * Default constructor for the camera.
+     * @param scrollSpeed How far the camera scrolls in a frame.
+     * @param width The width of the screen.
+     * @param height The height of the screen.
+     */
+    public Camera(int scrollSpeed, int width, int height) {
+        this.SCROLL_SPEED = scrollSpeed;
+        this.WIDTH = width;
+        this.HEIGHT = height;
+    }
+}
@@ -0,0 +1,79 @@
+package main;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Keeps the game's settings up to date with its properties files, reloading them when either file changes on disk.
+ * A reloaded file which is missing a setting or has an invalid one is ignored, and the previous settings are kept.
+ */
+public class ConfigWatcher {
+    private final File GAME_FILE;
+    private final File MESSAGE_FILE;
+    private GameConfig config;
+    private long gameFileModified;
+    private long messageFileModified;
+    private long lastCheck;
+
+    /**
+     * Get the most recently loaded settings.
+     * @return The most recently loaded valid settings.
+     */
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Reload the settings if hot reloading is turned on, it has been long enough since the last check, and either
+     * properties file has changed since it was last loaded.
+     * @param now The current time, in nanoseconds.
+     * @return Whether new settings were loaded.
+     */
+    public boolean poll(long now) {
+        if (!config.HOT_RELOAD || now - lastCheck < config.RELOAD_INTERVAL_MILLIS * 1_000_000L) {
+            return false;
+        }
+        lastCheck = now;
+        long gameModified = GAME_FILE.lastModified();
+        long messageModified = MESSAGE_FILE.lastModified();
+        if (gameModified == gameFileModified && messageModified == messageFileModified) {
+            return false;
+        }
+        gameFileModified = gameModified;
+        messageFileModified = messageModified;
+        try {
+            config = new GameConfig(read(GAME_FILE), read(MESSAGE_FILE));
+            System.out.println("Reloaded " + GAME_FILE + " and " + MESSAGE_FILE);
+            return true;
+        }
+        catch (IOException | IllegalArgumentException e) {
+            System.out.println("Keeping previous settings, couldn't reload them: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static Properties read(File file) throws IOException {
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+        }
+        return props;
+    }
+
+    /**
+     * Default constructor for the config watcher, which loads the settings straight away.
+     * @param gameFile The path to the properties file containing game information.
+     * @param messageFile The path to the properties file containing information about text.
+     */
+    public ConfigWatcher(String gameFile, String messageFile) {
+        GAME_FILE = new File(gameFile);
+        MESSAGE_FILE = new File(messageFile);
+        gameFileModified = GAME_FILE.lastModified();
+        messageFileModified = MESSAGE_FILE.lastModified();
+        config = GameConfig.load(gameFile, messageFile);
+        lastCheck = System.nanoTime();
+    }
+}
@@ -0,0 +1,68 @@
+package main;
+
+/**
+ * Decides how many fixed-length simulation ticks to run each rendered frame, so the game runs at the same speed
+ * no matter how fast the screen refreshes.
+ * If a frame takes too long, only a limited number of catch-up ticks are run and the rest of the time is dropped.
+ */
+public class FixedTimestep {
+    private final long TICK_NANOS;
+    private final int MAX_TICKS_PER_FRAME;
+    private long lastTime = -1;
+    private long accumulated = 0;
+
+    /**
+     * Get how far the simulation is between its last tick and its next tick.
+     * @return A value between 0 (just ticked) and 1 (about to tick), used to interpolate drawing.
+     */
+    public double getAlpha() {
+        return (double) accumulated / TICK_NANOS;
+    }
+
+    /**
+     * Get how long it will be until the next tick is due.
+     * @return How many nanoseconds until the next tick should be run.
+     */
+    public long getNanosUntilNextTick() {
+        return TICK_NANOS - accumulated;
+    }
+
+    /**
+     * Forget any time which has built up, e.g. when a new level starts.
+     */
+    public void reset() {
+        lastTime = -1;
+        accumulated = 0;
+    }
+
+    /**
+     * Work out how many ticks to run for the time that has passed since the last frame.
+     * @param now The current time, from System.nanoTime().
+     * @return How many ticks should be run this frame.
+     */
+    public int advance(long now) {
+        if (lastTime < 0) {
+            lastTime = now;
+            return 0;
+        }
+        accumulated += now - lastTime;
+        lastTime = now;
+        int ticks = (int) Math.min(accumulated / TICK_NANOS, MAX_TICKS_PER_FRAME);
+        accumulated -= ticks * TICK_NANOS;
+        // Drop time we can't catch up on, rather than falling further and further behind
+        if (accumulated >= TICK_NANOS) {
+            accumulated %= TICK_NANOS;
+        }
+        return ticks;
+    }
+
+    /**
+     * Default constructor for the fixed timestep.
+     * @param ticksPerSecond How many times a second the simulation should tick.
+     * @param maxTicksPerFrame The most ticks that can be run in one frame to catch up after a slow frame.
+     */
+    public FixedTimestep(int ticksPerSecond, int maxTicksPerFrame) {
+        this.TICK_NANOS = 1_000_000_000L / ticksPerSecond;
+        this.MAX_TICKS_PER_FRAME = maxTicksPerFrame;
+    }
+}
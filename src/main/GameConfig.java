@@ -0,0 +1,478 @@
+package main;
+
+import levels.FireballPool;
+
+import java.util.Properties;
+
+/**
+ * Every setting the game reads from its properties files, parsed and checked once when the files are loaded.
+ * A GameConfig never changes after it is created, so it can be shared between levels and threads freely.
+ */
+public final class GameConfig {
+    /**
+     * The path to the properties file containing game information.
+     */
+    public static final String GAME_FILE = "res/app.properties";
+    /**
+     * The path to the properties file containing information about text.
+     */
+    public static final String MESSAGE_FILE = "res/message_en.properties";
+    private static final int LEVEL_COUNT = 3;
+
+    /**
+     * The settings for one type of entity.
+     * Settings which a type of entity doesn't have are 0.
+     */
+    public static final class EntityConfig {
+        /**
+         * The path to the entity's image.
+         */
+        public final String IMAGE;
+        /**
+         * The entity's collision radius.
+         */
+        public final double RADIUS;
+        /**
+         * How fast the entity moves along the x-axis by itself. Only fireballs have one, since everything else only
+         * moves on screen as the camera scrolls.
+         */
+        public final int SPEED;
+        /**
+         * How fast the entity randomly moves along the x-axis.
+         */
+        public final int RANDOM_SPEED;
+        /**
+         * The furthest the entity randomly moves from its starting position.
+         */
+        public final int MAX_RANDOM_DISPLACEMENT_X;
+        /**
+         * How much damage the entity deals.
+         */
+        public final double DAMAGE;
+        /**
+         * The entity's initial health.
+         */
+        public final double HEALTH;
+        /**
+         * How much the entity adds to the player's score when collected.
+         */
+        public final int VALUE;
+        /**
+         * How many frames the entity's effect lasts once collected.
+         */
+        public final int MAX_FRAMES;
+
+        private EntityConfig(Properties props, String prefix, String imageKey) {
+            IMAGE = requireString(props, prefix + imageKey);
+            RADIUS = optionalDouble(props, prefix + "radius", 0, 0);
+            SPEED = optionalInt(props, prefix + "speed", 0, 0);
+            RANDOM_SPEED = optionalInt(props, prefix + "randomSpeed", 0, 0);
+            MAX_RANDOM_DISPLACEMENT_X = optionalInt(props, prefix + "maxRandomDisplacementX", 0, 0);
+            DAMAGE = optionalDouble(props, prefix + "damageSize", 0, 0);
+            HEALTH = optionalDouble(props, prefix + "health", 0, 0);
+            VALUE = optionalInt(props, prefix + "value", 0, 0);
+            MAX_FRAMES = optionalInt(props, prefix + "maxFrames", 0, 0);
+        }
+    }
+
+    /**
+     * Where and how large a piece of text is drawn.
+     */
+    public static final class TextConfig {
+        /**
+         * The text's font size.
+         */
+        public final int FONT_SIZE;
+        /**
+         * The text's x coordinate, or 0 for text which is centred.
+         */
+        public final int X;
+        /**
+         * The text's y coordinate.
+         */
+        public final int Y;
+
+        private TextConfig(Properties props, String prefix) {
+            FONT_SIZE = requireInt(props, prefix + "fontSize", 1);
+            X = optionalInt(props, prefix + "x", 0, Integer.MIN_VALUE);
+            Y = requireInt(props, prefix + "y", Integer.MIN_VALUE);
+        }
+    }
+
+    /**
+     * The window's width.
+     */
+    public final int WINDOW_WIDTH;
+    /**
+     * The window's height.
+     */
+    public final int WINDOW_HEIGHT;
+    /**
+     * The path to the font used for all text.
+     */
+    public final String FONT;
+    /**
+     * The path to the background image.
+     */
+    public final String BACKGROUND_IMAGE;
+    /**
+     * How many simulation ticks run each second.
+     */
+    public final int TICKS_PER_SECOND;
+    /**
+     * The most simulation ticks run in one frame.
+     */
+    public final int MAX_TICKS_PER_FRAME;
+    /**
+     * Whether levels are simulated on their own thread, while the window's thread only draws them.
+     */
+    public final boolean THREADED_SIMULATION;
+    /**
+     * How far the camera scrolls each tick the player moves.
+     */
+    public final int SCROLL_SPEED;
+    /**
+     * The width and height of each cell in the levels' spatial grids.
+     */
+    public final int GRID_CELL_SIZE;
+    /**
+     * The width of each chunk of a level which is loaded at once.
+     */
+    public final int CHUNK_WIDTH;
+    /**
+     * How far beyond the edges of the screen chunks are loaded.
+     */
+    public final int LOAD_MARGIN;
+    /**
+     * How far beyond the edges of the screen chunks are kept before being unloaded.
+     */
+    public final int UNLOAD_MARGIN;
+    /**
+     * How far beyond the edges of the screen entities are still drawn.
+     */
+    public final int DRAW_MARGIN;
+    /**
+     * How far beyond the edges of the screen entities keep moving, rather than being put to sleep.
+     * Must be at least the draw margin plus any entity's maximum random displacement, so that an entity which would
+     * have wandered onto the screen is always awake.
+     */
+    public final int SLEEP_MARGIN;
+    /**
+     * Whether the properties files are reloaded when they change on disk.
+     */
+    public final boolean HOT_RELOAD;
+    /**
+     * How often to check whether the properties files have changed, in milliseconds.
+     */
+    public final int RELOAD_INTERVAL_MILLIS;
+    /**
+     * The directory each game's input is recorded to, or an empty string if games aren't recorded.
+     */
+    public final String RECORDING_DIRECTORY;
+    /**
+     * How many ticks apart a replay's checkpoints are taken, for seeking through it.
+     */
+    public final int CHECKPOINT_INTERVAL;
+    /**
+     * The file the level being played is saved to, or an empty string if games aren't saved.
+     */
+    public final String SAVE_FILE;
+    /**
+     * How often the level being played is saved, in seconds, or 0 to only save it when the game is closed.
+     */
+    public final int AUTOSAVE_INTERVAL_SECONDS;
+    /**
+     * Whether the parts of each frame are timed from when the game starts, rather than from when the profiler's
+     * overlay is first shown.
+     */
+    public final boolean PROFILER_ENABLED;
+    /**
+     * The file the profiler's percentiles are written to, or an empty string if they aren't written.
+     */
+    public final String PROFILER_DUMP_FILE;
+    /**
+     * How often the profiler's percentiles are written, in seconds.
+     */
+    public final int PROFILER_DUMP_INTERVAL_SECONDS;
+    private final String[] LEVEL_FILES = new String[LEVEL_COUNT];
+
+    /**
+     * The title's position and size.
+     */
+    public final TextConfig TITLE;
+    /**
+     * The instructions' position and size.
+     */
+    public final TextConfig INSTRUCTION;
+    /**
+     * The win and loss messages' position and size.
+     */
+    public final TextConfig MESSAGE;
+    /**
+     * The score's position and size.
+     */
+    public final TextConfig SCORE;
+    /**
+     * The player's health's position and size.
+     */
+    public final TextConfig PLAYER_HEALTH;
+    /**
+     * The boss's health's position and size.
+     */
+    public final TextConfig BOSS_HEALTH;
+    /**
+     * The profiler overlay's position and size.
+     */
+    public final TextConfig PROFILER;
+
+    /**
+     * The title text.
+     */
+    public final String TITLE_MESSAGE;
+    /**
+     * The instructions text.
+     */
+    public final String INSTRUCTION_MESSAGE;
+    /**
+     * The text in front of the score.
+     */
+    public final String SCORE_MESSAGE;
+    /**
+     * The text in front of health.
+     */
+    public final String HEALTH_MESSAGE;
+    /**
+     * The text shown when the player loses.
+     */
+    public final String GAME_OVER_MESSAGE;
+    /**
+     * The text shown when the player wins.
+     */
+    public final String GAME_WON_MESSAGE;
+
+    /**
+     * The player's settings. The player's IMAGE is its right-facing image.
+     */
+    public final EntityConfig PLAYER;
+    /**
+     * The path to the player's left-facing image.
+     */
+    public final String PLAYER_LEFT_IMAGE;
+    /**
+     * The enemies' settings.
+     */
+    public final EntityConfig ENEMY;
+    /**
+     * The boss's settings.
+     */
+    public final EntityConfig BOSS;
+    /**
+     * How close the player must be to the boss for the boss fight to start.
+     */
+    public final int BOSS_ACTIVATION_RADIUS;
+    /**
+     * The base platform's settings.
+     */
+    public final EntityConfig PLATFORM;
+    /**
+     * The flying platforms' settings.
+     */
+    public final EntityConfig FLYING_PLATFORM;
+    /**
+     * A flying platform's half length.
+     */
+    public final int FLYING_PLATFORM_HALF_LENGTH;
+    /**
+     * A flying platform's half height.
+     */
+    public final int FLYING_PLATFORM_HALF_HEIGHT;
+    /**
+     * The coins' settings.
+     */
+    public final EntityConfig COIN;
+    /**
+     * The fireballs' settings. A fireball's SPEED is how fast it is thrown.
+     */
+    public final EntityConfig FIREBALL;
+    /**
+     * How many fireballs can be in flight at once.
+     */
+    public final int FIREBALL_POOL_CAPACITY;
+    /**
+     * What happens when a fireball is thrown while every fireball is in flight.
+     */
+    public final FireballPool.OverflowPolicy FIREBALL_OVERFLOW_POLICY;
+    /**
+     * The double score powerups' settings.
+     */
+    public final EntityConfig DOUBLE_SCORE;
+    /**
+     * The invincibility powerups' settings.
+     */
+    public final EntityConfig INVINCIBLE_POWER;
+    /**
+     * The end flag's settings.
+     */
+    public final EntityConfig END_FLAG;
+
+    /**
+     * Get the path to every image an entity may use.
+     * @return The paths to every entity image.
+     */
+    public String[] getEntityImagePaths() {
+        return new String[] {
+                PLAYER.IMAGE, PLAYER_LEFT_IMAGE, ENEMY.IMAGE, BOSS.IMAGE, PLATFORM.IMAGE, FLYING_PLATFORM.IMAGE,
+                COIN.IMAGE, FIREBALL.IMAGE, DOUBLE_SCORE.IMAGE, INVINCIBLE_POWER.IMAGE, END_FLAG.IMAGE
+        };
+    }
+
+    /**
+     * Get the path to a level's file.
+     * @param levelNum Which number level to get the file of.
+     * @return The path to the level's file.
+     */
+    public String getLevelFile(int levelNum) {
+        if (levelNum < 1 || levelNum > LEVEL_COUNT) {
+            throw new IllegalArgumentException("There is no level " + levelNum);
+        }
+        return LEVEL_FILES[levelNum - 1];
+    }
+
+    /**
+     * Read and check the game's properties files.
+     * @param gameFile The path to the properties file containing game information.
+     * @param messageFile The path to the properties file containing information about text.
+     * @return The game's settings.
+     */
+    public static GameConfig load(String gameFile, String messageFile) {
+        return new GameConfig(IOUtils.readPropertiesFile(gameFile), IOUtils.readPropertiesFile(messageFile));
+    }
+
+    private static String requireString(Properties props, String key) {
+        String value = props.getProperty(key);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing property " + key);
+        }
+        return value;
+    }
+
+    private static int requireInt(Properties props, String key, int min) {
+        String value = requireString(props, key);
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value.trim());
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property " + key + " should be a whole number, not " + value);
+        }
+        if (parsed < min) {
+            throw new IllegalArgumentException("Property " + key + " should be at least " + min + ", not " + value);
+        }
+        return parsed;
+    }
+
+    private static int optionalInt(Properties props, String key, int defaultValue, int min) {
+        return props.getProperty(key) == null ? defaultValue : requireInt(props, key, min);
+    }
+
+    private static double requireDouble(Properties props, String key, double min) {
+        String value = requireString(props, key);
+        double parsed;
+        try {
+            parsed = Double.parseDouble(value.trim());
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Property " + key + " should be a number, not " + value);
+        }
+        if (!(parsed >= min)) {
+            throw new IllegalArgumentException("Property " + key + " should be at least " + min + ", not " + value);
+        }
+        return parsed;
+    }
+
+    private static double optionalDouble(Properties props, String key, double defaultValue, double min) {
+        return props.getProperty(key) == null ? defaultValue : requireDouble(props, key, min);
+    }
+
+    /**
+     * Parse and check the game's settings.
+     * @param game_props Properties file containing game information.
+     * @param message_props Properties file containing information about text.
+     * @throws IllegalArgumentException If a setting is missing or invalid.
+     */
+    public GameConfig(Properties game_props, Properties message_props) {
+        WINDOW_WIDTH = requireInt(game_props, "windowWidth", 1);
+        WINDOW_HEIGHT = requireInt(game_props, "windowHeight", 1);
+        FONT = requireString(game_props, "font");
+        BACKGROUND_IMAGE = requireString(game_props, "backgroundImage");
+        TICKS_PER_SECOND = requireInt(game_props, "simulation.ticksPerSecond", 1);
+        MAX_TICKS_PER_FRAME = requireInt(game_props, "simulation.maxTicksPerFrame", 1);
+        THREADED_SIMULATION = Boolean.parseBoolean(game_props.getProperty("simulation.threaded", "false"));
+        SCROLL_SPEED = requireInt(game_props, "camera.scrollSpeed", 0);
+        GRID_CELL_SIZE = requireInt(game_props, "spatialGrid.cellSize", 1);
+        CHUNK_WIDTH = requireInt(game_props, "streaming.chunkWidth", 1);
+        LOAD_MARGIN = requireInt(game_props, "streaming.loadMargin", 0);
+        UNLOAD_MARGIN = requireInt(game_props, "streaming.unloadMargin", LOAD_MARGIN);
+        DRAW_MARGIN = requireInt(game_props, "culling.drawMargin", 0);
+        SLEEP_MARGIN = requireInt(game_props, "culling.sleepMargin", DRAW_MARGIN);
+        HOT_RELOAD = Boolean.parseBoolean(game_props.getProperty("config.hotReload", "false"));
+        RELOAD_INTERVAL_MILLIS = optionalInt(game_props, "config.reloadIntervalMillis", 1000, 1);
+        RECORDING_DIRECTORY = game_props.getProperty("recording.directory", "").trim();
+        CHECKPOINT_INTERVAL = optionalInt(game_props, "recording.checkpointInterval", 300, 1);
+        SAVE_FILE = game_props.getProperty("save.file", "").trim();
+        AUTOSAVE_INTERVAL_SECONDS = optionalInt(game_props, "save.autosaveSeconds", 5, 0);
+        PROFILER_ENABLED = Boolean.parseBoolean(game_props.getProperty("profiler.enabled", "false"));
+        PROFILER_DUMP_FILE = game_props.getProperty("profiler.dumpFile", "").trim();
+        PROFILER_DUMP_INTERVAL_SECONDS = optionalInt(game_props, "profiler.dumpIntervalSeconds", 10, 1);
+        for (int i = 0; i < LEVEL_COUNT; i++) {
+            LEVEL_FILES[i] = requireString(game_props, "level" + (i + 1) + "File");
+        }
+
+        TITLE = new TextConfig(game_props, "title.");
+        INSTRUCTION = new TextConfig(game_props, "instruction.");
+        MESSAGE = new TextConfig(game_props, "message.");
+        SCORE = new TextConfig(game_props, "score.");
+        PLAYER_HEALTH = new TextConfig(game_props, "playerHealth.");
+        BOSS_HEALTH = new TextConfig(game_props, "enemyBossHealth.");
+        PROFILER = new TextConfig(game_props, "profiler.");
+
+        TITLE_MESSAGE = requireString(message_props, "title");
+        INSTRUCTION_MESSAGE = requireString(message_props, "instruction");
+        SCORE_MESSAGE = requireString(message_props, "score");
+        HEALTH_MESSAGE = requireString(message_props, "health");
+        GAME_OVER_MESSAGE = requireString(message_props, "gameOver");
+        GAME_WON_MESSAGE = requireString(message_props, "gameWon");
+
+        PLAYER = new EntityConfig(game_props, "gameObjects.player.", "imageRight");
+        PLAYER_LEFT_IMAGE = requireString(game_props, "gameObjects.player.imageLeft");
+        ENEMY = new EntityConfig(game_props, "gameObjects.enemy.", "image");
+        BOSS = new EntityConfig(game_props, "gameObjects.enemyBoss.", "image");
+        BOSS_ACTIVATION_RADIUS = requireInt(game_props, "gameObjects.enemyBoss.activationRadius", 0);
+        PLATFORM = new EntityConfig(game_props, "gameObjects.platform.", "image");
+        FLYING_PLATFORM = new EntityConfig(game_props, "gameObjects.flyingPlatform.", "image");
+        FLYING_PLATFORM_HALF_LENGTH = requireInt(game_props, "gameObjects.flyingPlatform.halfLength", 0);
+        FLYING_PLATFORM_HALF_HEIGHT = requireInt(game_props, "gameObjects.flyingPlatform.halfHeight", 0);
+        COIN = new EntityConfig(game_props, "gameObjects.coin.", "image");
+        FIREBALL = new EntityConfig(game_props, "gameObjects.fireball.", "image");
+        FIREBALL_POOL_CAPACITY = requireInt(game_props, "gameObjects.fireball.poolCapacity", 0);
+        String overflowPolicy = requireString(game_props, "gameObjects.fireball.overflowPolicy");
+        try {
+            FIREBALL_OVERFLOW_POLICY = FireballPool.OverflowPolicy.valueOf(overflowPolicy.trim());
+        }
+        catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Property gameObjects.fireball.overflowPolicy should be DROP_NEWEST "
+                    + "or RECYCLE_OLDEST, not " + overflowPolicy);
+        }
+        DOUBLE_SCORE = new EntityConfig(game_props, "gameObjects.doubleScore.", "image");
+        INVINCIBLE_POWER = new EntityConfig(game_props, "gameObjects.invinciblePower.", "image");
+        END_FLAG = new EntityConfig(game_props, "gameObjects.endFlag.", "image");
+
+        // An entity asleep just outside the sleep margin mustn't be able to wander into the drawn area
+        int maxDisplacement = Math.max(ENEMY.MAX_RANDOM_DISPLACEMENT_X, FLYING_PLATFORM.MAX_RANDOM_DISPLACEMENT_X);
+        if (SLEEP_MARGIN < DRAW_MARGIN + maxDisplacement) {
+            throw new IllegalArgumentException("Property culling.sleepMargin should be at least culling.drawMargin "
+                    + "plus the largest maxRandomDisplacementX, " + (DRAW_MARGIN + maxDisplacement) + ", not "
+                    + SLEEP_MARGIN);
+        }
+    }
+}
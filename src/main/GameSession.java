@@ -0,0 +1,198 @@
+package main;
+
+import bagel.Keys;
+import levels.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A single play-through of a level.
+ * Holds the rules for winning and losing, so the same game can be run in a window or headless.
+ */
+public class GameSession {
+    private final Level level;
+    private GameState gameState = GameState.STARTED;
+    private int ticks = 0;
+    private final RenderQueue RENDER_QUEUE = new RenderQueue();
+    private InputRecorder recorder = null;
+    private Autosaver autosaver = null;
+
+    /**
+     * The keys which control the game during a level.
+     */
+    public static final Keys[] CONTROLS = {Keys.LEFT, Keys.RIGHT, Keys.UP, Keys.S};
+
+    /**
+     * Get the level being played.
+     * @return The level being played.
+     */
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Get the current state of the game.
+     * @return The current state of the game.
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    /**
+     * Get how many ticks the level has been played for.
+     * @return How many ticks the level has been played for.
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Update the recorder which every tick's input is given to.
+     * @param recorder The recorder to record the input with, or null to stop recording.
+     */
+    public void setRecorder(InputRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Update the autosaver which is given the game after every tick.
+     * @param autosaver The autosaver to save the game with, or null to stop autosaving.
+     */
+    public void setAutosaver(Autosaver autosaver) {
+        this.autosaver = autosaver;
+    }
+
+    /**
+     * Advance the level by a tick, checking whether the player has won or lost first.
+     * @param input The player's input for this tick.
+     * @return The state of the game after the tick.
+     */
+    public GameState update(InputSource input) {
+        if (gameState != GameState.STARTED) {
+            return gameState;
+        }
+        if (level.checkWinCondition()) {
+            gameState = GameState.WON;
+            return gameState;
+        }
+        if (level.checkLossCondition()) {
+            gameState = GameState.LOST;
+            return gameState;
+        }
+        if (recorder != null) {
+            recorder.record(input);
+        }
+        level.tick(input);
+        ticks++;
+        if (autosaver != null) {
+            autosaver.afterTick(this);
+        }
+        return gameState;
+    }
+
+    /**
+     * Write the state of the game and its level, so it can be carried on from the same tick later.
+     * @param out Where to write the game's state.
+     * @throws IOException If the state can't be written.
+     */
+    public void writeState(DataOutput out) throws IOException {
+        out.writeByte(gameState.ordinal());
+        out.writeInt(ticks);
+        level.writeState(out);
+    }
+
+    /**
+     * Put the game back into the state written by writeState.
+     * The level must have been created from the same settings and seed as the one whose state was written.
+     * @param in Where to read the game's state from.
+     * @throws IOException If the state can't be read, or was written by a different level.
+     */
+    public void readState(DataInput in) throws IOException {
+        int state = in.readByte();
+        if (state < 0 || state >= GameState.values().length) {
+            throw new IOException("Saved an unknown game state " + state);
+        }
+        gameState = GameState.values()[state];
+        ticks = in.readInt();
+        level.readState(in);
+    }
+
+    /**
+     * Save the state of the game into a new array.
+     * @return The game's state, as written by writeState.
+     */
+    public byte[] saveState() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeState(out);
+        } catch (IOException e) {
+            // Only thrown by the underlying stream, and a ByteArrayOutputStream never throws
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Put the game back into a state saved by saveState.
+     * @param state The saved state.
+     * @throws IOException If the state is cut short, or was saved by a different level.
+     */
+    public void restoreState(byte[] state) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(state))) {
+            readState(in);
+        }
+    }
+
+    /**
+     * Draw the level.
+     * @param renderer The renderer to draw the level with.
+     * @param alpha How far between the last tick and the next tick to draw moving entities, from 0 to 1.
+     */
+    public void render(Renderer renderer, double alpha) {
+        level.drawWorld(RENDER_QUEUE, alpha);
+        RENDER_QUEUE.flush(renderer);
+    }
+
+    /**
+     * Get how many batches the last frame was drawn in.
+     * This isn't how many draw calls reached the GPU, since bagel draws every sprite in a batch separately.
+     * @return How many batches were submitted when the level was last drawn.
+     */
+    public int getBatchCount() {
+        return RENDER_QUEUE.getBatchCount();
+    }
+
+    /**
+     * Create the given level.
+     * @param levelNum Which number level to create.
+     * @param config The game's settings.
+     * @param seed The seed for every random choice made in the level. The same seed and the same input always
+     *             play out the same.
+     * @return The new level.
+     */
+    public static Level createLevel(int levelNum, GameConfig config, long seed) {
+        switch (levelNum) {
+            case 1:
+                return new Level1(config, seed);
+            case 2:
+                return new Level2(config, seed);
+            default:
+                return new Level3(config, seed);
+        }
+    }
+
+    /**
+     * Default constructor for a game session.
+     * @param level The level to play.
+     */
+    public GameSession(Level level) {
+        this.level = level;
+    }
+}
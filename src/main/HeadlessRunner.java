@@ -0,0 +1,69 @@
+package main;
+
+/**
+ * Runs games without a window, so they can be simulated on machines without a GPU.
+ * Usage: HeadlessRunner [level] [games] [maxTicks]
+ * Each game holds RIGHT and jumps at a fixed interval. See BatchRunner for running many games in parallel.
+ */
+public class HeadlessRunner {
+    /**
+     * Play a single game to completion, holding RIGHT and jumping at a fixed interval.
+     * @param levelNum Which number level to play.
+     * @param maxTicks How many ticks to play before giving up.
+     * @param config The game's settings.
+     * @param seed The seed for every random choice made in the level.
+     * @return The finished session.
+     */
+    public static GameSession play(int levelNum, int maxTicks, GameConfig config, long seed) {
+        return play(levelNum, maxTicks, config, InputPolicy.scripted(), seed);
+    }
+
+    /**
+     * Play a single game to completion.
+     * @param levelNum Which number level to play.
+     * @param maxTicks How many ticks to play before giving up.
+     * @param config The game's settings.
+     * @param policy Decides which keys are pressed each tick.
+     * @param seed The seed for every random choice made in the level.
+     * @return The finished session.
+     */
+    public static GameSession play(int levelNum, int maxTicks, GameConfig config, InputPolicy policy, long seed) {
+        GameSession session = new GameSession(GameSession.createLevel(levelNum, config, seed));
+        InputFrame input = new InputFrame();
+        while (session.getGameState() == GameState.STARTED && session.getTicks() < maxTicks) {
+            policy.next(session, input);
+            session.update(input);
+        }
+        session.getLevel().dispose();
+        return session;
+    }
+
+    /**
+     * The entry point for running games headless.
+     * @param args The level number, the number of games, and the tick limit per game.
+     */
+    public static void main(String[] args) {
+        int levelNum = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int maxTicks = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+
+        Assets.setHeadless(true);
+        GameConfig config = GameConfig.load(GameConfig.GAME_FILE, GameConfig.MESSAGE_FILE);
+
+        int won = 0;
+        int lost = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            GameState result = play(levelNum, maxTicks, config, i).getGameState();
+            if (result == GameState.WON) {
+                won++;
+            }
+            else if (result == GameState.LOST) {
+                lost++;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("level %d: %d games, %d won, %d lost, %d unfinished, %.0f games/s%n",
+                levelNum, games, won, lost, games - won - lost, games / seconds);
+    }
+}
@@ -0,0 +1,113 @@
+package main;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts how often values of each size are recorded, with buckets which grow with the values they hold, so any
+ * value from 0 to Long.MAX_VALUE is kept to within about 3% of its size in a fixed amount of memory.
+ * Each power of two is split into 32 equal buckets, and values below 32 get a bucket each.
+ * Values can be recorded from any number of threads at once, and read from any other, without locking. A reading
+ * taken while values are being recorded may miss the newest few.
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private final AtomicLongArray COUNTS = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong COUNT = new AtomicLong();
+    private final AtomicLong SUM = new AtomicLong();
+    private final AtomicLong MAX = new AtomicLong();
+
+    /**
+     * Record a value.
+     * @param value The value to record. Negative values are recorded as 0.
+     */
+    public void record(long value) {
+        long v = Math.max(value, 0);
+        COUNTS.incrementAndGet(bucketOf(v));
+        COUNT.incrementAndGet();
+        SUM.addAndGet(v);
+        MAX.accumulateAndGet(v, Math::max);
+    }
+
+    /**
+     * Get how many values have been recorded.
+     * @return How many values have been recorded.
+     */
+    public long getCount() {
+        return COUNT.get();
+    }
+
+    /**
+     * Get the mean of the values recorded.
+     * @return The mean value, or 0 if nothing has been recorded.
+     */
+    public double getMean() {
+        long count = COUNT.get();
+        return count == 0 ? 0 : (double) SUM.get() / count;
+    }
+
+    /**
+     * Get the largest value recorded.
+     * @return The largest value recorded, or 0 if nothing has been recorded.
+     */
+    public long getMax() {
+        return MAX.get();
+    }
+
+    /**
+     * Get the value at or below which a given fraction of the values recorded lie.
+     * @param fraction The fraction of values to be at or below the result, from 0 to 1, e.g. 0.99 for the 99th
+     *                 percentile.
+     * @return The largest value in the bucket holding that percentile, but no more than the largest value
+     *         recorded, or 0 if nothing has been recorded.
+     */
+    public long getPercentile(double fraction) {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += COUNTS.get(i);
+        }
+        long needed = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += COUNTS.get(i);
+            if (seen >= needed) {
+                return Math.min(highestValueIn(i), MAX.get());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Forget every value recorded so far.
+     * Values recorded while the histogram is being reset may be partly forgotten.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            COUNTS.set(i, 0);
+        }
+        COUNT.set(0);
+        SUM.set(0);
+        MAX.set(0);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        // Values from 2^n to 2^(n+1) are split into SUB_BUCKETS buckets, each 2^(n - SUB_BUCKET_BITS) wide
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,79 @@
+package main;
+
+import bagel.Keys;
+
+/**
+ * Input which is set directly by code rather than read from a keyboard.
+ * Used to drive levels without a window.
+ */
+public class InputFrame implements InputSource {
+    private static final int KEY_COUNT = Keys.values().length;
+    private final boolean[] down = new boolean[KEY_COUNT];
+    private final boolean[] pressed = new boolean[KEY_COUNT];
+
+    /**
+     * Check whether a key is currently held down.
+     * @param key The key to check.
+     * @return Whether the key is held down.
+     */
+    @Override
+    public boolean isDown(Keys key) {
+        return down[key.ordinal()];
+    }
+
+    /**
+     * Check whether a key was pressed since the last update.
+     * @param key The key to check.
+     * @return Whether the key was pressed since the last update.
+     */
+    @Override
+    public boolean wasPressed(Keys key) {
+        return pressed[key.ordinal()];
+    }
+
+    /**
+     * Update whether a key is held down.
+     * @param key The key to update.
+     * @param isDown Whether the key is held down.
+     */
+    public void setDown(Keys key, boolean isDown) {
+        down[key.ordinal()] = isDown;
+    }
+
+    /**
+     * Update whether a key was pressed since the last update.
+     * @param key The key to update.
+     * @param wasPressed Whether the key was pressed.
+     */
+    public void setPressed(Keys key, boolean wasPressed) {
+        pressed[key.ordinal()] = wasPressed;
+    }
+
+    /**
+     * Copy the state of some keys from another input source.
+     * Presses are kept until clearPresses is called, so a press isn't lost if no update happens in a frame.
+     * @param source The input source to copy from.
+     * @param keys The keys to copy.
+     */
+    public void capture(InputSource source, Keys[] keys) {
+        for (Keys key: keys) {
+            down[key.ordinal()] = source.isDown(key);
+            pressed[key.ordinal()] |= source.wasPressed(key);
+        }
+    }
+
+    /**
+     * Forget every key press, once an update has seen them.
+     */
+    public void clearPresses() {
+        java.util.Arrays.fill(pressed, false);
+    }
+
+    /**
+     * Release every key.
+     */
+    public void clear() {
+        java.util.Arrays.fill(down, false);
+        java.util.Arrays.fill(pressed, false);
+    }
+}
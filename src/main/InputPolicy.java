@@ -0,0 +1,71 @@
+package main;
+
+import bagel.Keys;
+
+import java.util.SplittableRandom;
+
+/**
+ * Decides what keys to press each tick when a game is played without a player, e.g. by the batch runner.
+ * A policy belongs to a single game, so it may keep state between ticks.
+ */
+public interface InputPolicy {
+    /**
+     * How many ticks the scripted policy waits between jumps.
+     */
+    int JUMP_INTERVAL = 90;
+
+    /**
+     * Choose the keys for the next tick.
+     * @param session The game being played, before the tick is run.
+     * @param input The input to update. Keys which should be held or pressed on this tick should be set to true,
+     *              and all others to false.
+     */
+    void next(GameSession session, InputFrame input);
+
+    /**
+     * Get a policy which holds RIGHT, jumping and shooting at fixed intervals.
+     * @return The scripted policy.
+     */
+    static InputPolicy scripted() {
+        return (session, input) -> {
+            input.setDown(Keys.RIGHT, true);
+            input.setPressed(Keys.UP, session.getTicks() % JUMP_INTERVAL == 0);
+            input.setPressed(Keys.S, session.getTicks() % JUMP_INTERVAL == JUMP_INTERVAL / 2);
+        };
+    }
+
+    /**
+     * Get a policy which mostly moves right, but turns back, stands still, jumps and shoots at random.
+     * The same seed always presses the same keys on the same ticks.
+     * @param seed The seed for the policy's random choices.
+     * @return The random policy.
+     */
+    static InputPolicy random(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        return (session, input) -> {
+            int move = random.nextInt(10);
+            input.setDown(Keys.RIGHT, move < 7);
+            input.setDown(Keys.LEFT, move == 7);
+            input.setPressed(Keys.UP, random.nextInt(30) == 0);
+            input.setPressed(Keys.S, random.nextInt(20) == 0);
+        };
+    }
+
+    /**
+     * Get a policy by its name.
+     * @param name "scripted" or "random".
+     * @param seed The seed for the policy, if it makes random choices.
+     * @return The policy.
+     * @throws IllegalArgumentException If there is no policy with that name.
+     */
+    static InputPolicy forName(String name, long seed) {
+        switch (name) {
+            case "scripted":
+                return scripted();
+            case "random":
+                return random(seed);
+            default:
+                throw new IllegalArgumentException("Unknown input policy " + name);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package main;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Records the input given on each tick of a game, so the game can be played again exactly.
+ * Attach a recorder to a session with GameSession.setRecorder, then call finish once the game is over.
+ */
+public class InputRecorder {
+    private final int LEVEL_NUM;
+    private final String LEVEL_FILE;
+    private final long SEED;
+    private final ByteArrayOutputStream RUNS = new ByteArrayOutputStream();
+    private int frame = -1;
+    private int runLength = 0;
+    private int ticks = 0;
+
+    /**
+     * Record the input for one tick.
+     * @param input The input the tick is about to be run with.
+     */
+    public void record(InputSource input) {
+        int next = InputRecording.encode(input);
+        if (next != frame) {
+            endRun();
+            frame = next;
+        }
+        runLength++;
+        ticks++;
+    }
+
+    /**
+     * Stop recording, and bundle the input with how the game ended.
+     * @param session The session which was recorded.
+     * @return The finished recording.
+     */
+    public InputRecording finish(GameSession session) {
+        endRun();
+        return new InputRecording(LEVEL_NUM, LEVEL_FILE, SEED, ticks, session.getGameState(),
+                session.getLevel().getPlayer().getScore(), session.getLevel().getPlayer().getHealth(),
+                RUNS.toByteArray());
+    }
+
+    private void endRun() {
+        if (runLength == 0) {
+            return;
+        }
+        RUNS.write(frame);
+        // Run lengths are written 7 bits at a time, lowest bits first, with the top bit set on all but the last byte
+        int length = runLength;
+        while (length >= 0x80) {
+            RUNS.write((length & 0x7F) | 0x80);
+            length >>>= 7;
+        }
+        RUNS.write(length);
+        runLength = 0;
+    }
+
+    /**
+     * Default constructor for the input recorder.
+     * @param levelNum Which number level is being played.
+     * @param levelFile The path to the level file being played.
+     * @param seed The seed the level is being played with.
+     */
+    public InputRecorder(int levelNum, String levelFile, long seed) {
+        this.LEVEL_NUM = levelNum;
+        this.LEVEL_FILE = levelFile;
+        this.SEED = seed;
+    }
+}
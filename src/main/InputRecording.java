@@ -0,0 +1,301 @@
+package main;
+
+import bagel.Keys;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The input given on every tick of a game, along with what is needed to play the game again: the level, its seed,
+ * and how the game ended, so a replay can be checked against it.
+ * Each tick's input is one byte, holding which controls were held down and which were pressed. Runs of ticks with
+ * the same input are stored as the byte followed by the run's length, so holding a key down for minutes takes a
+ * few bytes, and a whole game usually takes a few kilobytes.
+ */
+public class InputRecording {
+    /**
+     * The extension recordings are saved with.
+     */
+    public static final String EXTENSION = ".replay";
+    private static final int MAGIC = 0x534D5250;
+    private static final int VERSION = 2;
+    private static final Keys[] KEYS = GameSession.CONTROLS;
+
+    private final int LEVEL_NUM;
+    private final String LEVEL_FILE;
+    private final long SEED;
+    private final int TICKS;
+    private final GameState GAME_STATE;
+    private final int SCORE;
+    private final double HEALTH;
+    private final byte[] RUNS;
+
+    /**
+     * Get which number level was played.
+     * @return Which number level was played.
+     */
+    public int getLevelNum() {
+        return LEVEL_NUM;
+    }
+
+    /**
+     * Get the path to the level file which was played.
+     * @return The path to the level file.
+     */
+    public String getLevelFile() {
+        return LEVEL_FILE;
+    }
+
+    /**
+     * Get the seed the level was played with.
+     * @return The level's seed.
+     */
+    public long getSeed() {
+        return SEED;
+    }
+
+    /**
+     * Get how many ticks were played.
+     * @return How many ticks were played.
+     */
+    public int getTicks() {
+        return TICKS;
+    }
+
+    /**
+     * Get how the game ended.
+     * @return WON or LOST, or STARTED if the game was left before it finished.
+     */
+    public GameState getGameState() {
+        return GAME_STATE;
+    }
+
+    /**
+     * Get the player's score at the end of the game.
+     * @return The player's final score.
+     */
+    public int getScore() {
+        return SCORE;
+    }
+
+    /**
+     * Get the player's health at the end of the game.
+     * @return The player's final health.
+     */
+    public double getHealth() {
+        return HEALTH;
+    }
+
+    /**
+     * Get how many bytes the recorded input takes up.
+     * @return The size of the encoded input, in bytes.
+     */
+    public int getInputSize() {
+        return RUNS.length;
+    }
+
+    /**
+     * Plays back the recorded input a tick at a time, decoding one run at a time.
+     */
+    private final class Playback implements InputPolicy {
+        private int position = 0;
+        private int frame = 0;
+        private int remaining = 0;
+
+        @Override
+        public void next(GameSession session, InputFrame input) {
+            if (remaining == 0) {
+                nextRun();
+            }
+            remaining--;
+            decode(frame, input);
+        }
+
+        // Skip ticks without decoding them, a whole run at a time where possible
+        private void skip(int ticks) {
+            while (ticks > 0) {
+                if (remaining == 0) {
+                    nextRun();
+                }
+                int skipped = Math.min(ticks, remaining);
+                remaining -= skipped;
+                ticks -= skipped;
+            }
+        }
+
+        private void nextRun() {
+            if (position == RUNS.length) {
+                frame = 0;
+                remaining = Integer.MAX_VALUE;
+                return;
+            }
+            frame = RUNS[position++] & 0xFF;
+            int length = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = RUNS[position++];
+                length |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            remaining = length;
+        }
+    }
+
+    /**
+     * Get a policy which presses the recorded keys on each tick, and nothing once the recording has run out.
+     * Each call gives a new policy which starts from the first tick.
+     * @return The recorded input, as an input policy.
+     */
+    public InputPolicy playback() {
+        return new Playback();
+    }
+
+    /**
+     * Get a policy which presses the recorded keys on each tick from a given tick onwards, and nothing once the
+     * recording has run out.
+     * @param fromTick The tick whose input the policy gives first.
+     * @return The recorded input from that tick, as an input policy.
+     */
+    public InputPolicy playback(int fromTick) {
+        Playback playback = new Playback();
+        playback.skip(fromTick);
+        return playback;
+    }
+
+    /**
+     * Turn the controls held and pressed on a tick into the byte they are recorded as.
+     * @param input The input for the tick.
+     * @return The recorded byte, from 0 to 255.
+     */
+    static int encode(InputSource input) {
+        int frame = 0;
+        for (int i = 0; i < KEYS.length; i++) {
+            if (input.isDown(KEYS[i])) {
+                frame |= 1 << i;
+            }
+            if (input.wasPressed(KEYS[i])) {
+                frame |= 1 << (i + KEYS.length);
+            }
+        }
+        return frame;
+    }
+
+    private static void decode(int frame, InputFrame input) {
+        for (int i = 0; i < KEYS.length; i++) {
+            input.setDown(KEYS[i], (frame & (1 << i)) != 0);
+            input.setPressed(KEYS[i], (frame & (1 << (i + KEYS.length))) != 0);
+        }
+    }
+
+    // How many ticks the encoded input covers, or -1 if it is cut off part way through a run
+    private static long countTicks(byte[] runs) {
+        long ticks = 0;
+        int position = 0;
+        while (position < runs.length) {
+            position++;
+            long length = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (position == runs.length || shift > 28) {
+                    return -1;
+                }
+                int b = runs[position++];
+                length |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            ticks += length;
+        }
+        return ticks;
+    }
+
+    /**
+     * Save the recording to a file.
+     * @param path The file to save to.
+     * @throws IOException If the file can't be written.
+     */
+    public void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(LEVEL_NUM);
+            out.writeUTF(LEVEL_FILE);
+            out.writeLong(SEED);
+            out.writeInt(TICKS);
+            out.writeUTF(GAME_STATE.name());
+            out.writeInt(SCORE);
+            out.writeDouble(HEALTH);
+            out.writeInt(RUNS.length);
+            out.write(RUNS);
+        }
+    }
+
+    /**
+     * Load a recording from a file.
+     * @param path The file to load.
+     * @return The recording.
+     * @throws IOException If the file can't be read, or isn't a recording this version of the game understands.
+     */
+    public static InputRecording read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not an input recording");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(path + " has unsupported version " + version);
+            }
+            int levelNum = in.readInt();
+            String levelFile = in.readUTF();
+            long seed = in.readLong();
+            int ticks = in.readInt();
+            GameState gameState;
+            try {
+                gameState = GameState.valueOf(in.readUTF());
+            } catch (IllegalArgumentException e) {
+                throw new IOException(path + " has an unknown game state", e);
+            }
+            int score = in.readInt();
+            double health = in.readDouble();
+            int size = in.readInt();
+            if (size < 0) {
+                throw new IOException(path + " has a negative input size");
+            }
+            byte[] runs = new byte[size];
+            in.readFully(runs);
+            if (countTicks(runs) != ticks) {
+                throw new IOException(path + " has input which doesn't match its length of " + ticks + " ticks");
+            }
+            return new InputRecording(levelNum, levelFile, seed, ticks, gameState, score, health, runs);
+        }
+    }
+
+    /**
+     * Default constructor for an input recording.
+     * @param levelNum Which number level was played.
+     * @param levelFile The path to the level file which was played.
+     * @param seed The seed the level was played with.
+     * @param ticks How many ticks were played.
+     * @param gameState How the game ended.
+     * @param score The player's score at the end of the game.
+     * @param health The player's health at the end of the game.
+     * @param runs The encoded input for every tick.
+     */
+    InputRecording(int levelNum, String levelFile, long seed, int ticks, GameState gameState, int score,
+                   double health, byte[] runs) {
+        this.LEVEL_NUM = levelNum;
+        this.LEVEL_FILE = levelFile;
+        this.SEED = seed;
+        this.TICKS = ticks;
+        this.GAME_STATE = gameState;
+        this.SCORE = score;
+        this.HEALTH = health;
+        this.RUNS = runs;
+    }
+}
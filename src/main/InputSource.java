@@ -0,0 +1,22 @@
+package main;
+
+import bagel.Keys;
+
+/**
+ * A source of player input, so levels can be driven by the keyboard or by a script.
+ */
+public interface InputSource {
+    /**
+     * Check whether a key is currently held down.
+     * @param key The key to check.
+     * @return Whether the key is held down.
+     */
+    boolean isDown(Keys key);
+
+    /**
+     * Check whether a key was pressed since the last update.
+     * @param key The key to check.
+     * @return Whether the key was pressed since the last update.
+     */
+    boolean wasPressed(Keys key);
+}
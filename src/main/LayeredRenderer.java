@@ -0,0 +1,33 @@
+package main;
+
+/**
+ * A renderer which draws things on layers, so things can be drawn in any order and still overlap correctly.
+ */
+public interface LayeredRenderer extends Renderer {
+    /**
+     * The layer for the ground and platforms.
+     */
+    int TERRAIN = 0;
+    /**
+     * The layer for coins, power ups and the end flag.
+     */
+    int ITEMS = 1;
+    /**
+     * The layer for enemies, the boss and fireballs.
+     */
+    int CHARACTERS = 2;
+    /**
+     * The layer for the player.
+     */
+    int PLAYER = 3;
+    /**
+     * The layer for the score and health, drawn over everything else.
+     */
+    int HUD = 4;
+
+    /**
+     * Update which layer things drawn from now on are drawn on. Higher layers are drawn over lower layers.
+     * @param layer The layer to draw on, such as CHARACTERS.
+     */
+    void setLayer(int layer);
+}
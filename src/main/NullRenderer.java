@@ -0,0 +1,43 @@
+package main;
+
+import bagel.DrawOptions;
+import bagel.Font;
+import bagel.Image;
+
+/**
+ * A renderer which draws nothing, used when running without a window.
+ */
+public class NullRenderer implements Renderer {
+    /**
+     * Does nothing.
+     * @param image Ignored.
+     * @param x Ignored.
+     * @param y Ignored.
+     */
+    @Override
+    public void drawImage(Image image, double x, double y) {
+    }
+
+    /**
+     * Does nothing.
+     * @param image Ignored.
+     * @param xs Ignored.
+     * @param ys Ignored.
+     * @param count Ignored.
+     */
+    @Override
+    public void drawImages(Image image, double[] xs, double[] ys, int count) {
+    }
+
+    /**
+     * Does nothing.
+     * @param font Ignored.
+     * @param text Ignored.
+     * @param x Ignored.
+     * @param y Ignored.
+     * @param options Ignored.
+     */
+    @Override
+    public void drawString(Font font, String text, double x, double y, DrawOptions options) {
+    }
+}
@@ -0,0 +1,307 @@
+package main;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the parts of each frame and tick, to show where a frame's time goes when the game stutters.
+ * Each section's times are recorded into a histogram, which can be recorded from the window's thread and the
+ * simulation thread at once without locking. While profiling is turned off, starting and ending a section only checks
+ * a flag, so the calls can be left in the game.
+ * Allocations are measured per thread, so they are only counted on JVMs which can measure them.
+ */
+public class Profiler {
+    /**
+     * The parts of a frame and a tick which are timed.
+     */
+    public enum Section {
+        /**
+         * The time from the start of one frame to the start of the next.
+         */
+        FRAME_INTERVAL("ns"),
+        /**
+         * The time the window's thread spends on a whole frame.
+         */
+        FRAME("ns"),
+        /**
+         * Reading the window's keyboard and handing it on to the level.
+         */
+        INPUT("ns"),
+        /**
+         * Updating the level's entities for one tick, including checking for collisions.
+         */
+        UPDATE("ns"),
+        /**
+         * Checking the player against collectibles and enemies for one tick.
+         */
+        COLLISIONS("ns"),
+        /**
+         * Drawing the level.
+         */
+        DRAW("ns"),
+        /**
+         * Building the score and health text at the end of a tick.
+         */
+        HUD("ns"),
+        /**
+         * How much the window's thread allocates in one frame.
+         */
+        FRAME_ALLOCATION("B"),
+        /**
+         * How much one tick allocates.
+         */
+        TICK_ALLOCATION("B");
+
+        private final String UNIT;
+
+        /**
+         * Get the unit the section's values are measured in.
+         * @return "ns" for times, or "B" for bytes.
+         */
+        public String getUnit() {
+            return UNIT;
+        }
+
+        Section(String unit) {
+            this.UNIT = unit;
+        }
+    }
+
+    /**
+     * Returned by start when profiling is turned off, so the matching end records nothing.
+     */
+    public static final long NOT_STARTED = Long.MIN_VALUE;
+    private static final Section[] SECTIONS = Section.values();
+    private static final Histogram[] HISTOGRAMS = new Histogram[SECTIONS.length];
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+    private static volatile boolean enabled = false;
+    private static long frameStart = NOT_STARTED;
+    private static long frameAllocationStart = NOT_STARTED;
+    private static ScheduledExecutorService dumper = null;
+
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) {
+            HISTOGRAMS[i] = new Histogram();
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported()) {
+                    threads.setThreadAllocatedMemoryEnabled(true);
+                    return threads;
+                }
+            }
+        } catch (UnsupportedOperationException | NoClassDefFoundError e) {
+            // Allocations just aren't measured
+        }
+        return null;
+    }
+
+    /**
+     * Get whether sections are being timed.
+     * @return Whether profiling is turned on.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Update whether sections are timed.
+     * @param isEnabled Whether profiling should be turned on.
+     */
+    public static void setEnabled(boolean isEnabled) {
+        enabled = isEnabled;
+    }
+
+    /**
+     * Get whether allocations can be measured on this JVM.
+     * @return Whether allocations are measured.
+     */
+    public static boolean isMeasuringAllocations() {
+        return THREADS != null;
+    }
+
+    /**
+     * Get the histogram a section's values are recorded in.
+     * @param section The section.
+     * @return The section's histogram.
+     */
+    public static Histogram getHistogram(Section section) {
+        return HISTOGRAMS[section.ordinal()];
+    }
+
+    /**
+     * Start timing a section.
+     * @return The time the section started, to be passed to end, or NOT_STARTED if profiling is turned off.
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : NOT_STARTED;
+    }
+
+    /**
+     * Finish timing a section, recording how long it took.
+     * @param section The section being timed.
+     * @param start The time returned by start.
+     */
+    public static void end(Section section, long start) {
+        if (start != NOT_STARTED) {
+            HISTOGRAMS[section.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Start measuring how much the current thread allocates.
+     * @return How much the thread had allocated so far, to be passed to endAllocation, or NOT_STARTED if profiling is
+     *         turned off or allocations can't be measured.
+     */
+    public static long startAllocation() {
+        return enabled && THREADS != null ? allocatedBytes() : NOT_STARTED;
+    }
+
+    /**
+     * Finish measuring how much the current thread allocates, recording how much it allocated.
+     * Must be called on the same thread as the matching startAllocation.
+     * @param section The section being measured.
+     * @param start The value returned by startAllocation.
+     */
+    public static void endAllocation(Section section, long start) {
+        if (start != NOT_STARTED) {
+            HISTOGRAMS[section.ordinal()].record(allocatedBytes() - start);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Start timing a frame, recording how long it has been since the last frame started.
+     * Should be called from the window's thread at the start of every frame.
+     */
+    public static void beginFrame() {
+        long now = start();
+        if (now != NOT_STARTED && frameStart != NOT_STARTED) {
+            HISTOGRAMS[Section.FRAME_INTERVAL.ordinal()].record(now - frameStart);
+        }
+        frameStart = now;
+        frameAllocationStart = startAllocation();
+    }
+
+    /**
+     * Finish timing a frame.
+     * Should be called from the window's thread at the end of every frame.
+     */
+    public static void endFrame() {
+        end(Section.FRAME, frameStart);
+        endAllocation(Section.FRAME_ALLOCATION, frameAllocationStart);
+        frameAllocationStart = NOT_STARTED;
+    }
+
+    /**
+     * Forget every value recorded so far.
+     */
+    public static void reset() {
+        for (Histogram histogram: HISTOGRAMS) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Start writing every section's percentiles to a file every few seconds, resetting the histograms after each
+     * write so every write covers the seconds since the last.
+     * A file ending in .json is overwritten with the latest write, and any other file has a CSV row added for each
+     * section. Files are written on a thread of their own, so a slow disk never holds up a frame.
+     * @param file The file to write to.
+     * @param intervalSeconds How often to write the file, in seconds.
+     */
+    public static synchronized void startDumping(String file, int intervalSeconds) {
+        stopDumping();
+        Path path = Paths.get(file);
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "profiler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(path), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop writing the profile to a file.
+     */
+    public static synchronized void stopDumping() {
+        if (dumper != null) {
+            dumper.shutdown();
+            dumper = null;
+        }
+    }
+
+    /**
+     * Write every section's percentiles to a file, then reset the histograms.
+     * @param path The file to write to. A file ending in .json is overwritten, and any other file has a CSV row added
+     *             for each section.
+     */
+    public static void dump(Path path) {
+        long time = System.currentTimeMillis();
+        try {
+            if (path.toString().endsWith(".json")) {
+                Files.write(path, toJson(time).getBytes(StandardCharsets.UTF_8));
+            }
+            else {
+                boolean isNew = !Files.exists(path);
+                Files.write(path, toCsv(time, isNew).getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            System.err.println("Couldn't write the profile to " + path + ": " + e.getMessage());
+        }
+        reset();
+    }
+
+    private static String toCsv(long time, boolean withHeader) {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        if (withHeader) {
+            out.println("time_ms,section,unit,count,mean,p50,p99,p999,max");
+        }
+        for (Section section: SECTIONS) {
+            Histogram histogram = getHistogram(section);
+            out.printf(Locale.ROOT, "%d,%s,%s,%d,%.1f,%d,%d,%d,%d%n", time, section, section.getUnit(),
+                    histogram.getCount(), histogram.getMean(), histogram.getPercentile(0.5),
+                    histogram.getPercentile(0.99), histogram.getPercentile(0.999), histogram.getMax());
+        }
+        out.flush();
+        return text.toString();
+    }
+
+    private static String toJson(long time) {
+        StringWriter text = new StringWriter();
+        PrintWriter out = new PrintWriter(text);
+        out.printf(Locale.ROOT, "{\"time_ms\": %d, \"sections\": {%n", time);
+        for (int i = 0; i < SECTIONS.length; i++) {
+            Histogram histogram = getHistogram(SECTIONS[i]);
+            out.printf(Locale.ROOT, "  \"%s\": {\"unit\": \"%s\", \"count\": %d, \"mean\": %.1f, "
+                            + "\"p50\": %d, \"p99\": %d, \"p999\": %d, \"max\": %d}%s%n",
+                    SECTIONS[i], SECTIONS[i].getUnit(), histogram.getCount(), histogram.getMean(),
+                    histogram.getPercentile(0.5), histogram.getPercentile(0.99), histogram.getPercentile(0.999),
+                    histogram.getMax(), i == SECTIONS.length - 1 ? "" : ",");
+        }
+        out.println("}}");
+        out.flush();
+        return text.toString();
+    }
+}
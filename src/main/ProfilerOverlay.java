@@ -0,0 +1,96 @@
+package main;
+
+import bagel.DrawOptions;
+import bagel.Font;
+import bagel.util.Colour;
+
+import java.util.Locale;
+
+/**
+ * Shows the profiler's percentiles on top of the game, to see where a frame's time goes while playing.
+ * The text is only rebuilt a few times a second, so the overlay barely shows up in the times it shows.
+ */
+public class ProfilerOverlay {
+    private static final long REFRESH_NANOS = 250_000_000L;
+    private static final Profiler.Section[] SECTIONS = Profiler.Section.values();
+    private final Font FONT;
+    private final int X;
+    private final int Y;
+    private final int LINE_HEIGHT;
+    private final DrawOptions OPTIONS = new DrawOptions().setBlendColour(Colour.WHITE);
+    private final String[] LINES = new String[SECTIONS.length + 1];
+    private boolean visible = false;
+    private long refreshedAt = 0;
+
+    /**
+     * Get whether the overlay is being shown.
+     * @return Whether the overlay is being shown.
+     */
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Show the overlay if it is hidden, or hide it if it is shown.
+     * Showing the overlay turns profiling on and starts the percentiles afresh. Hiding it leaves profiling as it was.
+     */
+    public void toggle() {
+        visible = !visible;
+        if (visible) {
+            Profiler.setEnabled(true);
+            Profiler.reset();
+            refreshedAt = 0;
+        }
+    }
+
+    /**
+     * Draw the overlay, if it is being shown.
+     * @param renderer The renderer to draw the overlay with.
+     * @param now The current value of System.nanoTime.
+     */
+    public void draw(Renderer renderer, long now) {
+        if (!visible) {
+            return;
+        }
+        if (refreshedAt == 0 || now - refreshedAt >= REFRESH_NANOS) {
+            refresh();
+            refreshedAt = now;
+        }
+        for (int i = 0; i < LINES.length; i++) {
+            renderer.drawString(FONT, LINES[i], X, Y + i * LINE_HEIGHT, OPTIONS);
+        }
+    }
+
+    private void refresh() {
+        LINES[0] = String.format(Locale.ROOT, "%-16s %8s %8s %8s %8s", "", "p50", "p99", "p99.9", "max");
+        for (int i = 0; i < SECTIONS.length; i++) {
+            Histogram histogram = Profiler.getHistogram(SECTIONS[i]);
+            boolean bytes = SECTIONS[i].getUnit().equals("B");
+            if (bytes && !Profiler.isMeasuringAllocations()) {
+                LINES[i + 1] = String.format(Locale.ROOT, "%-16s %8s", SECTIONS[i], "n/a");
+                continue;
+            }
+            LINES[i + 1] = String.format(Locale.ROOT, "%-16s %8s %8s %8s %8s", SECTIONS[i],
+                    format(histogram.getPercentile(0.5), bytes), format(histogram.getPercentile(0.99), bytes),
+                    format(histogram.getPercentile(0.999), bytes), format(histogram.getMax(), bytes));
+        }
+    }
+
+    private static String format(long value, boolean bytes) {
+        // Times are shown in milliseconds, and allocations in kilobytes
+        return bytes
+                ? String.format(Locale.ROOT, "%.1fK", value / 1024.0)
+                : String.format(Locale.ROOT, "%.2fms", value / 1e6);
+    }
+
+    /**
+     * Default constructor for the overlay.
+     * @param config The game's settings.
+     */
+    public ProfilerOverlay(GameConfig config) {
+        this.FONT = Assets.getFont(config.FONT, config.PROFILER.FONT_SIZE);
+        this.X = config.PROFILER.X;
+        this.Y = config.PROFILER.Y;
+        this.LINE_HEIGHT = config.PROFILER.FONT_SIZE + config.PROFILER.FONT_SIZE / 4;
+    }
+}
@@ -0,0 +1,156 @@
+package main;
+
+import bagel.DrawOptions;
+import bagel.Font;
+import bagel.Image;
+
+import java.util.Arrays;
+
+/**
+ * Collects everything drawn during a frame, then submits it to another renderer sorted by layer and texture.
+ * Within a layer, every sprite sharing an image is submitted as one batch through Renderer.drawImages. Things on the
+ * same layer with the same image keep the order they were queued in.
+ * Bagel has no way to draw many copies of an image at once, so WindowRenderer still draws each sprite in a batch with
+ * its own Image.draw call. The batch count is how many times the texture changes between draws, not how many draw
+ * calls reach the GPU.
+ * Textures are sorted by the id Assets gave them when they were loaded. The queue's arrays are kept between frames, so
+ * queueing a frame doesn't allocate once the queue has grown.
+ */
+public class RenderQueue implements LayeredRenderer {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int INDEX_BITS = 32;
+    private static final int TEXTURE_BITS = 24;
+    private static final long INDEX_MASK = (1L << INDEX_BITS) - 1;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Object[] textures = new Object[INITIAL_CAPACITY];
+    private String[] texts = new String[INITIAL_CAPACITY];
+    private DrawOptions[] options = new DrawOptions[INITIAL_CAPACITY];
+    private double[] xs = new double[INITIAL_CAPACITY];
+    private double[] ys = new double[INITIAL_CAPACITY];
+    private double[] batchXs = new double[INITIAL_CAPACITY];
+    private double[] batchYs = new double[INITIAL_CAPACITY];
+    private int size = 0;
+    private int layer = TERRAIN;
+    private int batchCount = 0;
+
+    /**
+     * Update which layer things queued from now on are drawn on. Higher layers are drawn over lower layers.
+     * @param layer The layer to draw on, such as CHARACTERS.
+     */
+    @Override
+    public void setLayer(int layer) {
+        this.layer = layer;
+    }
+
+    /**
+     * Get how many batches were submitted by the last flush.
+     * @return How many runs of text or of sprites sharing an image the last frame was drawn in.
+     */
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * Get how many things are waiting to be drawn.
+     * @return How many things are waiting to be drawn.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Queue an image to be drawn centred on a point on the screen.
+     * @param image The image to draw.
+     * @param x The x coordinate of the image's centre.
+     * @param y The y coordinate of the image's centre.
+     */
+    @Override
+    public void drawImage(Image image, double x, double y) {
+        queue(image, null, x, y, null);
+    }
+
+    /**
+     * Queue a string of text to be drawn.
+     * @param font The font to draw the text in.
+     * @param text The text to draw.
+     * @param x The x coordinate of the text's bottom left corner.
+     * @param y The y coordinate of the text's bottom left corner.
+     * @param options Extra drawing options, such as the text's colour.
+     */
+    @Override
+    public void drawString(Font font, String text, double x, double y, DrawOptions options) {
+        queue(font, text, x, y, options);
+    }
+
+    /**
+     * Draw everything which has been queued, then empty the queue.
+     * @param target The renderer to draw with.
+     */
+    public void flush(Renderer target) {
+        Arrays.sort(keys, 0, size);
+        batchCount = 0;
+        int i = 0;
+        while (i < size) {
+            int index = (int) (keys[i] & INDEX_MASK);
+            Object texture = textures[index];
+            if (texts[index] != null) {
+                target.drawString((Font) texture, texts[index], xs[index], ys[index], options[index]);
+                i++;
+            }
+            else {
+                int count = 0;
+                long run = keys[i] >>> INDEX_BITS;
+                // Two textures can share an id, so the texture itself is checked too
+                while (i < size && keys[i] >>> INDEX_BITS == run && texts[(int) (keys[i] & INDEX_MASK)] == null
+                        && textures[(int) (keys[i] & INDEX_MASK)] == texture) {
+                    int next = (int) (keys[i] & INDEX_MASK);
+                    batchXs[count] = xs[next];
+                    batchYs[count] = ys[next];
+                    count++;
+                    i++;
+                }
+                target.drawImages((Image) texture, batchXs, batchYs, count);
+            }
+            batchCount++;
+        }
+        clear();
+    }
+
+    /**
+     * Throw away everything which has been queued without drawing it.
+     */
+    public void clear() {
+        Arrays.fill(textures, 0, size, null);
+        Arrays.fill(texts, 0, size, null);
+        Arrays.fill(options, 0, size, null);
+        size = 0;
+        layer = TERRAIN;
+    }
+
+    private void queue(Object texture, String text, double x, double y, DrawOptions drawOptions) {
+        if (size == keys.length) {
+            grow();
+        }
+        long id = Assets.getTextureId(texture);
+        keys[size] = ((long) layer << (TEXTURE_BITS + INDEX_BITS)) | (id << INDEX_BITS) | size;
+        textures[size] = texture;
+        texts[size] = text;
+        options[size] = drawOptions;
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        textures = Arrays.copyOf(textures, capacity);
+        texts = Arrays.copyOf(texts, capacity);
+        options = Arrays.copyOf(options, capacity);
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        batchXs = Arrays.copyOf(batchXs, capacity);
+        batchYs = Arrays.copyOf(batchYs, capacity);
+    }
+}
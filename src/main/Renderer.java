@@ -0,0 +1,43 @@
+package main;
+
+import bagel.DrawOptions;
+import bagel.Font;
+import bagel.Image;
+
+/**
+ * Something which draws images and text, so levels can be drawn to a window or not drawn at all.
+ */
+public interface Renderer {
+    /**
+     * Draw an image centred on a point on the screen.
+     * @param image The image to draw.
+     * @param x The x coordinate of the image's centre.
+     * @param y The y coordinate of the image's centre.
+     */
+    void drawImage(Image image, double x, double y);
+
+    /**
+     * Draw the same image centred on several points on the screen.
+     * By default each copy is drawn separately; renderers which can draw many copies of an image at once should
+     * override this.
+     * @param image The image to draw.
+     * @param xs The x coordinates of each copy's centre.
+     * @param ys The y coordinates of each copy's centre.
+     * @param count How many copies to draw, taken from the start of xs and ys.
+     */
+    default void drawImages(Image image, double[] xs, double[] ys, int count) {
+        for (int i = 0; i < count; i++) {
+            drawImage(image, xs[i], ys[i]);
+        }
+    }
+
+    /**
+     * Draw a string of text.
+     * @param font The font to draw the text in.
+     * @param text The text to draw.
+     * @param x The x coordinate of the text's bottom left corner.
+     * @param y The y coordinate of the text's bottom left corner.
+     * @param options Extra drawing options, such as the text's colour.
+     */
+    void drawString(Font font, String text, double x, double y, DrawOptions options);
+}
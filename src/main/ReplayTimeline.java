@@ -0,0 +1,165 @@
+package main;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.SplittableRandom;
+
+/**
+ * A recorded game which can be moved to any tick, forwards or backwards, for reviewing replays and debugging long
+ * levels.
+ * The game's state is saved as a checkpoint every few ticks the first time it is played through. Seeking restores
+ * the last checkpoint at or before the tick wanted and plays the recorded input from there, so no seek plays more
+ * than one checkpoint interval of ticks. Seeking forwards within the same interval just carries on playing.
+ * Usage: ReplayTimeline file [seeks]
+ */
+public class ReplayTimeline {
+    private final InputRecording RECORDING;
+    private final GameSession SESSION;
+    private final int CHECKPOINT_INTERVAL;
+    // Checkpoint i holds the game's state at tick i * CHECKPOINT_INTERVAL
+    private final ArrayList<byte[]> CHECKPOINTS = new ArrayList<>();
+    private final InputFrame INPUT = new InputFrame();
+    private InputPolicy policy;
+
+    /**
+     * Get the game being replayed, at the tick last sought to.
+     * @return The game being replayed.
+     */
+    public GameSession getSession() {
+        return SESSION;
+    }
+
+    /**
+     * Get how many ticks the recording lasts for.
+     * @return The tick the recording ends on.
+     */
+    public int getLength() {
+        return RECORDING.getTicks();
+    }
+
+    /**
+     * Get how many checkpoints have been taken so far.
+     * @return How many checkpoints have been taken.
+     */
+    public int getCheckpointCount() {
+        return CHECKPOINTS.size();
+    }
+
+    /**
+     * Get how many bytes the checkpoints taken so far use altogether.
+     * @return The total size of the checkpoints, in bytes.
+     */
+    public long getCheckpointBytes() {
+        long total = 0;
+        for (byte[] checkpoint: CHECKPOINTS) {
+            total += checkpoint.length;
+        }
+        return total;
+    }
+
+    /**
+     * Move the game to a tick of the recording.
+     * Seeking to the end of the recording also checks whether the game was won or lost on the last tick.
+     * @param tick The tick to move to, which is clamped to the length of the recording.
+     */
+    public void seek(int tick) {
+        int target = Math.max(0, Math.min(tick, getLength()));
+        int checkpoint = Math.min(target / CHECKPOINT_INTERVAL, CHECKPOINTS.size() - 1);
+        int checkpointTick = checkpoint * CHECKPOINT_INTERVAL;
+        if (target < SESSION.getTicks() || checkpointTick > SESSION.getTicks()) {
+            restore(checkpoint);
+        }
+        while (SESSION.getTicks() < target && SESSION.getGameState() == GameState.STARTED) {
+            policy.next(SESSION, INPUT);
+            SESSION.update(INPUT);
+            if (SESSION.getTicks() == CHECKPOINTS.size() * CHECKPOINT_INTERVAL) {
+                CHECKPOINTS.add(SESSION.saveState());
+            }
+        }
+        // The game is only seen to be won or lost at the start of the update after the last recorded tick
+        if (target == getLength() && SESSION.getGameState() == GameState.STARTED
+                && RECORDING.getGameState() != GameState.STARTED) {
+            SESSION.update(new InputFrame());
+        }
+    }
+
+    private void restore(int checkpoint) {
+        try {
+            SESSION.restoreState(CHECKPOINTS.get(checkpoint));
+        } catch (IOException e) {
+            throw new IllegalStateException("Checkpoint " + checkpoint + " couldn't be restored", e);
+        }
+        policy = RECORDING.playback(SESSION.getTicks());
+    }
+
+    /**
+     * Release the level's images back to the shared asset registry.
+     * Should be called once the timeline is no longer needed.
+     */
+    public void dispose() {
+        SESSION.getLevel().dispose();
+    }
+
+    /**
+     * The entry point for timing seeks through a recording.
+     * Plays the recording through once, then seeks to random ticks and reports how long each seek took, and checks
+     * the game still ends the way it was recorded.
+     * @param args The recording file, and optionally how many random seeks to make.
+     * @throws Exception If the recording or the settings can't be read.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: ReplayTimeline file [seeks]");
+            System.exit(1);
+        }
+        int seeks = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        Assets.setHeadless(true);
+        InputRecording recording = InputRecording.read(Paths.get(args[0]));
+        Properties game_props = IOUtils.readPropertiesFile(GameConfig.GAME_FILE);
+        Properties message_props = IOUtils.readPropertiesFile(GameConfig.MESSAGE_FILE);
+        game_props.setProperty("level" + recording.getLevelNum() + "File", recording.getLevelFile());
+        GameConfig config = new GameConfig(game_props, message_props);
+
+        ReplayTimeline timeline = new ReplayTimeline(recording, config);
+        long start = System.nanoTime();
+        timeline.seek(timeline.getLength());
+        double playMillis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("played %d ticks in %.1fms, taking %d checkpoints of %d bytes in total%n",
+                timeline.getLength(), playMillis, timeline.getCheckpointCount(), timeline.getCheckpointBytes());
+
+        SplittableRandom random = new SplittableRandom(recording.getSeed());
+        long slowest = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < seeks; i++) {
+            long seekStart = System.nanoTime();
+            timeline.seek(random.nextInt(timeline.getLength() + 1));
+            slowest = Math.max(slowest, System.nanoTime() - seekStart);
+        }
+        double seekMillis = (System.nanoTime() - start) / 1e6;
+        timeline.seek(timeline.getLength());
+        boolean matched = ReplayVerifier.matches(recording, timeline.getSession());
+        System.out.printf("%d seeks: %.3fms mean, %.3fms slowest; ends %s%n", seeks, seekMillis / Math.max(seeks, 1),
+                slowest / 1e6, matched ? "as recorded" : "differently to the recording");
+        timeline.dispose();
+        if (!matched) {
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Default constructor for a replay timeline, which starts at the first tick of the recording.
+     * @param recording The recording to replay.
+     * @param config The game's settings. The recorded level is played from the level file in the settings.
+     */
+    public ReplayTimeline(InputRecording recording, GameConfig config) {
+        this.RECORDING = recording;
+        this.CHECKPOINT_INTERVAL = config.CHECKPOINT_INTERVAL;
+        this.SESSION = new GameSession(
+                GameSession.createLevel(recording.getLevelNum(), config, recording.getSeed()));
+        this.policy = recording.playback();
+        CHECKPOINTS.add(SESSION.saveState());
+    }
+}
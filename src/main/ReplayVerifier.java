@@ -0,0 +1,86 @@
+package main;
+
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Plays recorded games again without a window, as fast as possible, and checks that each ends the same way it did
+ * when it was recorded: the same outcome, score and health. A mismatch means the recording was tampered with, or a
+ * change to the game has changed how it plays.
+ * Usage: ReplayVerifier file...
+ */
+public class ReplayVerifier {
+    /**
+     * Play a recorded game again.
+     * @param recording The recording to play.
+     * @param config The game's settings. The recorded level is played from the level file in the settings.
+     * @return The finished session.
+     */
+    public static GameSession replay(InputRecording recording, GameConfig config) {
+        GameSession session = new GameSession(
+                GameSession.createLevel(recording.getLevelNum(), config, recording.getSeed()));
+        InputPolicy policy = recording.playback();
+        InputFrame input = new InputFrame();
+        while (session.getGameState() == GameState.STARTED && session.getTicks() < recording.getTicks()) {
+            policy.next(session, input);
+            session.update(input);
+        }
+        // The game is only seen to be won or lost at the start of the update after the last recorded tick
+        if (recording.getGameState() != GameState.STARTED && session.getGameState() == GameState.STARTED) {
+            session.update(new InputFrame());
+        }
+        session.getLevel().dispose();
+        return session;
+    }
+
+    /**
+     * Check whether a replayed game ended the same way as its recording.
+     * @param recording The recording which was played.
+     * @param session The finished session the recording was played in.
+     * @return Whether the outcome, tick count, score and health all match.
+     */
+    public static boolean matches(InputRecording recording, GameSession session) {
+        return session.getGameState() == recording.getGameState()
+                && session.getTicks() == recording.getTicks()
+                && session.getLevel().getPlayer().getScore() == recording.getScore()
+                && Double.compare(session.getLevel().getPlayer().getHealth(), recording.getHealth()) == 0;
+    }
+
+    /**
+     * The entry point for verifying recorded games.
+     * @param args The recording files to verify.
+     * @throws Exception If a recording or the settings can't be read.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: ReplayVerifier file...");
+            System.exit(1);
+        }
+        Assets.setHeadless(true);
+        Properties message_props = IOUtils.readPropertiesFile(GameConfig.MESSAGE_FILE);
+        int mismatches = 0;
+        for (String file : args) {
+            InputRecording recording = InputRecording.read(Paths.get(file));
+            Properties game_props = IOUtils.readPropertiesFile(GameConfig.GAME_FILE);
+            game_props.setProperty("level" + recording.getLevelNum() + "File", recording.getLevelFile());
+            GameConfig config = new GameConfig(game_props, message_props);
+
+            long start = System.nanoTime();
+            GameSession session = replay(recording, config);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            boolean matched = matches(recording, session);
+            if (!matched) {
+                mismatches++;
+            }
+            System.out.printf("%s: %s, recorded %s after %d ticks with score %d and health %.2f, "
+                            + "replayed %s after %d ticks with score %d and health %.2f, %.0f ticks/s%n",
+                    file, matched ? "OK" : "MISMATCH",
+                    recording.getGameState(), recording.getTicks(), recording.getScore(), recording.getHealth(),
+                    session.getGameState(), session.getTicks(), session.getLevel().getPlayer().getScore(),
+                    session.getLevel().getPlayer().getHealth(), session.getTicks() / seconds);
+        }
+        if (mismatches > 0) {
+            System.exit(2);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package main;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * A level part way through being played, which can be written to a file and carried on from later.
+ * The file starts with a header saying which level was being played, from which level file and with which seed,
+ * followed by the game's state as written by GameSession.writeState, and a checksum of the state. The state is
+ * written field by field, so saving a level only takes as long as writing its entities' positions.
+ */
+public class SaveGame {
+    private static final int MAGIC = 0x534D5356;
+    /**
+     * The version of the save format written by this version of the game. Should be increased whenever what any
+     * class writes in writeState changes, so older saves are rejected rather than misread.
+     */
+    public static final int VERSION = 1;
+
+    private final int LEVEL_NUM;
+    private final String LEVEL_FILE;
+    private final long SEED;
+    private final byte[] STATE;
+
+    /**
+     * Get which number level was being played.
+     * @return Which number level was being played.
+     */
+    public int getLevelNum() {
+        return LEVEL_NUM;
+    }
+
+    /**
+     * Get how many bytes the game's state takes up.
+     * @return The size of the saved state, in bytes.
+     */
+    public int getStateSize() {
+        return STATE.length;
+    }
+
+    /**
+     * Save the state of a game being played.
+     * Must be called from the thread which ticks the game, or while the game isn't being ticked.
+     * @param session The game to save.
+     * @param levelNum Which number level the game is playing.
+     * @param levelFile The path to the level file the level was created from.
+     * @return The saved game.
+     */
+    public static SaveGame capture(GameSession session, int levelNum, String levelFile) {
+        return new SaveGame(levelNum, levelFile, session.getLevel().getSeed(), session.saveState());
+    }
+
+    /**
+     * Create the saved level again, and put it back into the state it was saved in.
+     * @param config The game's settings. Should be the settings the game was saved with, apart from any which only
+     *               change how the game is drawn.
+     * @return The game, ready to carry on playing from the tick it was saved on.
+     * @throws IOException If the level file has changed since the game was saved, or the state doesn't match it.
+     */
+    public GameSession restore(GameConfig config) throws IOException {
+        String levelFile;
+        try {
+            levelFile = config.getLevelFile(LEVEL_NUM);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("The game was saved on a level which doesn't exist", e);
+        }
+        if (!levelFile.equals(LEVEL_FILE)) {
+            throw new IOException("The game was saved on " + LEVEL_FILE + ", but level " + LEVEL_NUM + " is now "
+                    + levelFile);
+        }
+        GameSession session = new GameSession(GameSession.createLevel(LEVEL_NUM, config, SEED));
+        try {
+            session.restoreState(STATE);
+        } catch (IOException | RuntimeException e) {
+            session.getLevel().dispose();
+            throw e;
+        }
+        return session;
+    }
+
+    /**
+     * Write the saved game to a file.
+     * The file is written next to its destination first and then moved into place, so a game closing part way
+     * through saving never leaves a broken save behind.
+     * @param path The file to write.
+     * @throws IOException If the file can't be written.
+     */
+    public void write(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(LEVEL_NUM);
+            out.writeUTF(LEVEL_FILE);
+            out.writeLong(SEED);
+            out.writeInt(STATE.length);
+            out.write(STATE);
+            out.writeLong(checksum(STATE));
+        }
+        try {
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Read a saved game from a file.
+     * @param path The file to read.
+     * @return The saved game.
+     * @throws IOException If the file can't be read, is damaged, or was saved by a different version of the game.
+     */
+    public static SaveGame read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a saved game");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException(path + " was saved by version " + version + " of the save format, but only "
+                        + "version " + VERSION + " can be loaded");
+            }
+            int levelNum = in.readInt();
+            String levelFile = in.readUTF();
+            long seed = in.readLong();
+            int size = in.readInt();
+            if (size < 0) {
+                throw new IOException(path + " has a negative state size");
+            }
+            byte[] state = new byte[size];
+            in.readFully(state);
+            if (in.readLong() != checksum(state)) {
+                throw new IOException(path + " is damaged");
+            }
+            return new SaveGame(levelNum, levelFile, seed, state);
+        }
+    }
+
+    private static long checksum(byte[] state) {
+        CRC32 crc = new CRC32();
+        crc.update(state, 0, state.length);
+        return crc.getValue();
+    }
+
+    /**
+     * Default constructor for a saved game.
+     * @param levelNum Which number level was being played.
+     * @param levelFile The path to the level file the level was created from.
+     * @param seed The seed the level was played with.
+     * @param state The game's state, as saved by GameSession.saveState.
+     */
+    private SaveGame(int levelNum, String levelFile, long seed, byte[] state) {
+        this.LEVEL_NUM = levelNum;
+        this.LEVEL_FILE = levelFile;
+        this.SEED = seed;
+        this.STATE = state;
+    }
+}
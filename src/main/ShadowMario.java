@@ -2,9 +2,10 @@ package main;
 
 import bagel.*;
 
-import levels.*;
-
-import java.util.Properties;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * Skeleton Code for SWEN20003 Project 1, Semester 1, 2024
@@ -13,9 +14,53 @@ import java.util.Properties;
  */
 public class ShadowMario extends AbstractGame {
     /**
-     * The level the player is in.
+     * The level the player is playing.
+     */
+    private GameSession session = null;
+    /**
+     * Runs the level on its own thread, if levels aren't simulated on the window's thread.
+     */
+    private SimulationThread simulation = null;
+    /**
+     * Records the input to the level, if games are being recorded.
+     */
+    private InputRecorder recorder = null;
+    /**
+     * The directory the level's recording is saved to once it is over.
+     */
+    private String recordingDirectory = "";
+    /**
+     * Saves the level every few seconds, and when the game is closed, if saving is turned on.
+     */
+    private Autosaver autosaver = null;
+    /**
+     * Reads input from the window's keyboard.
+     */
+    private final WindowInput WINDOW_INPUT = new WindowInput();
+    /**
+     * Draws to the window.
+     */
+    private final Renderer RENDERER = new WindowRenderer();
+    /**
+     * Sorts what is drawn from a simulation thread's snapshots before it is drawn to the window.
+     */
+    private final RenderQueue RENDER_QUEUE = new RenderQueue();
+    /**
+     * The input for each simulation tick, which holds onto key presses until a tick has seen them.
+     */
+    private final InputFrame TICK_INPUT = new InputFrame();
+    /**
+     * Holds the game's settings, reloading them if they change on disk and hot reloading is turned on.
+     */
+    private final ConfigWatcher CONFIG_WATCHER;
+    /**
+     * Shows where each frame's time goes, when F3 is pressed.
+     */
+    private final ProfilerOverlay PROFILER_OVERLAY;
+    /**
+     * Decides how many simulation ticks to run each frame.
      */
-    private Level level = null;
+    private final FixedTimestep CLOCK;
     /**
      * Game background.
      */
@@ -31,41 +76,51 @@ public class ShadowMario extends AbstractGame {
     private GameState gameState = GameState.NOT_STARTED;
 
     /**
-     * The constructor
+     * The constructor.
+     * The window, title screen and timestep use the settings the game started with; reloaded settings apply from
+     * the next level started.
      */
-    public ShadowMario(Properties game_props, Properties message_props) {
-        super(Integer.parseInt(game_props.getProperty("windowWidth")),
-              Integer.parseInt(game_props.getProperty("windowHeight")),
-              message_props.getProperty("title"));
+    public ShadowMario(ConfigWatcher configWatcher) {
+        this(configWatcher, configWatcher.getConfig());
+    }
 
-        BACKGROUND_IMAGE = new Image(game_props.getProperty("backgroundImage"));
+    private ShadowMario(ConfigWatcher configWatcher, GameConfig config) {
+        super(config.WINDOW_WIDTH, config.WINDOW_HEIGHT, config.TITLE_MESSAGE);
 
-        final String FONT = game_props.getProperty("font");
+        CONFIG_WATCHER = configWatcher;
+        BACKGROUND_IMAGE = new Image(config.BACKGROUND_IMAGE);
+        CLOCK = new FixedTimestep(config.TICKS_PER_SECOND, config.MAX_TICKS_PER_FRAME);
+        PROFILER_OVERLAY = new ProfilerOverlay(config);
+        Profiler.setEnabled(config.PROFILER_ENABLED);
+        if (!config.PROFILER_DUMP_FILE.isEmpty()) {
+            Profiler.setEnabled(true);
+            Profiler.startDumping(config.PROFILER_DUMP_FILE, config.PROFILER_DUMP_INTERVAL_SECONDS);
+        }
 
         TITLE = new Text(
-                message_props.getProperty("title"),
-                new Font(FONT, Integer.parseInt(game_props.getProperty("title.fontSize"))),
-                Integer.parseInt(game_props.getProperty("title.x")),
-                Integer.parseInt(game_props.getProperty("title.y"))
+                config.TITLE_MESSAGE,
+                Assets.getFont(config.FONT, config.TITLE.FONT_SIZE),
+                config.TITLE.X,
+                config.TITLE.Y
             );
 
         INSTRUCTIONS = new Text(
-                message_props.getProperty("instruction"),
-                new Font(FONT, Integer.parseInt(game_props.getProperty("instruction.fontSize"))),
-                Integer.parseInt(game_props.getProperty("instruction.y"))
+                config.INSTRUCTION_MESSAGE,
+                Assets.getFont(config.FONT, config.INSTRUCTION.FONT_SIZE),
+                config.INSTRUCTION.Y
         );
 
-        final Font MESSAGE_FONT = new Font(FONT, Integer.parseInt(game_props.getProperty("message.fontSize")));
-        final int MESSAGE_Y = Integer.parseInt(game_props.getProperty("message.y"));
+        final Font MESSAGE_FONT = Assets.getFont(config.FONT, config.MESSAGE.FONT_SIZE);
+        final int MESSAGE_Y = config.MESSAGE.Y;
 
         WIN_TEXT = new Text(
-                message_props.getProperty("gameWon"),
+                config.GAME_WON_MESSAGE,
                 MESSAGE_FONT,
                 MESSAGE_Y
         );
 
         LOSS_TEXT = new Text(
-                message_props.getProperty("gameOver"),
+                config.GAME_OVER_MESSAGE,
                 MESSAGE_FONT,
                 MESSAGE_Y
         );
@@ -75,32 +130,40 @@ public class ShadowMario extends AbstractGame {
      * The entry point for the program.
      */
     public static void main(String[] args) {
-        Properties game_props = IOUtils.readPropertiesFile("res/app.properties");
-        Properties message_props = IOUtils.readPropertiesFile("res/message_en.properties");
-
-        ShadowMario game = new ShadowMario(game_props, message_props);
+        ShadowMario game = new ShadowMario(new ConfigWatcher(GameConfig.GAME_FILE, GameConfig.MESSAGE_FILE));
         game.run();
     }
 
     /**
      * Performs a state update.
-     * Allows the game to exit when the escape key is pressed.
+     * Allows the game to exit when the escape key is pressed, and shows or hides the profiler when F3 is pressed.
      */
     @Override
     protected void update(Input input) {
+        Profiler.beginFrame();
 
-        // Close window
+        // Close window, saving the level being played so it can be carried on later
         if (input.wasPressed(Keys.ESCAPE)) {
+            if (gameState == GameState.STARTED) {
+                saveOnExit();
+            }
             Window.close();
+            return;
+        }
+
+        if (input.wasPressed(Keys.F3)) {
+            PROFILER_OVERLAY.toggle();
         }
 
-        BACKGROUND_IMAGE.draw(Window.getWidth() / 2.0, Window.getHeight() / 2.0);
+        WINDOW_INPUT.setInput(input);
+        CONFIG_WATCHER.poll(System.nanoTime());
+        RENDERER.drawImage(BACKGROUND_IMAGE, Window.getWidth() / 2.0, Window.getHeight() / 2.0);
 
         switch (gameState) {
             case NOT_STARTED:
                 // Draw title and instructions
-                TITLE.draw();
-                INSTRUCTIONS.draw();
+                TITLE.draw(RENDERER);
+                INSTRUCTIONS.draw(RENDERER);
                 if (input.wasPressed(Keys.NUM_1)) {
                     initLevel(1);
                     gameState = GameState.STARTED;
@@ -113,34 +176,60 @@ public class ShadowMario extends AbstractGame {
                     initLevel(3);
                     gameState = GameState.STARTED;
                 }
+                else if (input.wasPressed(Keys.L) && loadSavedGame()) {
+                    gameState = session.getGameState();
+                }
                 break;
             case STARTED:
-                if (level.checkWinCondition()) {
-                    gameState = GameState.WON;
-                    return;
+                if (simulation != null) {
+                    long start = Profiler.start();
+                    simulation.submitInput(WINDOW_INPUT);
+                    Profiler.end(Profiler.Section.INPUT, start);
+                    start = Profiler.start();
+                    gameState = simulation.render(RENDER_QUEUE, System.nanoTime());
+                    RENDER_QUEUE.flush(RENDERER);
+                    Profiler.end(Profiler.Section.DRAW, start);
+                    if (gameState != GameState.STARTED) {
+                        simulation.stop();
+                        finishLevel();
+                    }
+                    break;
+                }
+                long start = Profiler.start();
+                TICK_INPUT.capture(WINDOW_INPUT, GameSession.CONTROLS);
+                Profiler.end(Profiler.Section.INPUT, start);
+                int ticks = CLOCK.advance(System.nanoTime());
+                for (int i = 0; i < ticks && gameState == GameState.STARTED; i++) {
+                    gameState = session.update(TICK_INPUT);
+                    TICK_INPUT.clearPresses();
                 }
-                if (level.checkLossCondition()) {
-                    gameState = GameState.LOST;
-                    return;
+                if (gameState == GameState.STARTED) {
+                    start = Profiler.start();
+                    session.render(RENDERER, CLOCK.getAlpha());
+                    Profiler.end(Profiler.Section.DRAW, start);
+                }
+                else {
+                    finishLevel();
                 }
-                level.update(input);
-                level.drawWorld();
                 break;
             case WON:
-                WIN_TEXT.draw();
+                WIN_TEXT.draw(RENDERER);
                 // Restart game
                 if (input.wasPressed(Keys.SPACE)) {
                     gameState = GameState.NOT_STARTED;
                 }
                 break;
             case LOST:
-                LOSS_TEXT.draw();
+                LOSS_TEXT.draw(RENDERER);
                 // Restart game
                 if (input.wasPressed(Keys.SPACE)) {
                     gameState = GameState.NOT_STARTED;
                 }
                 break;
         }
+
+        PROFILER_OVERLAY.draw(RENDERER, System.nanoTime());
+        Profiler.endFrame();
     }
 
     /**
@@ -148,19 +237,135 @@ public class ShadowMario extends AbstractGame {
      * @param levelNum Which number level the player wants to play.
      */
     private void initLevel(int levelNum) {
-        Properties game_props = IOUtils.readPropertiesFile("res/app.properties");
-        Properties message_props = IOUtils.readPropertiesFile("res/message_en.properties");
+        disposeLevel();
+        GameConfig config = CONFIG_WATCHER.getConfig();
+        long seed = System.nanoTime();
+        GameSession newSession = new GameSession(GameSession.createLevel(levelNum, config, seed));
+        recordingDirectory = config.RECORDING_DIRECTORY;
+        recorder = recordingDirectory.isEmpty()
+                ? null
+                : new InputRecorder(levelNum, config.getLevelFile(levelNum), seed);
+        newSession.setRecorder(recorder);
+        startLevel(newSession, levelNum, config);
+    }
 
-        switch (levelNum) {
-            case 1:
-                level = new Level1(game_props, message_props);
-                break;
-            case 2:
-                level = new Level2(game_props, message_props);
-                break;
-            default:
-                level = new Level3(game_props, message_props);
-                break;
+    /**
+     * Carry on the level which was being played when the game was last closed.
+     * Loaded games aren't recorded, since a recording has to start from the level's first tick.
+     * @return Whether a saved game was loaded.
+     */
+    private boolean loadSavedGame() {
+        GameConfig config = CONFIG_WATCHER.getConfig();
+        if (config.SAVE_FILE.isEmpty() || !Files.exists(Paths.get(config.SAVE_FILE))) {
+            return false;
+        }
+        disposeLevel();
+        try {
+            SaveGame save = SaveGame.read(Paths.get(config.SAVE_FILE));
+            GameSession newSession = save.restore(config);
+            recorder = null;
+            startLevel(newSession, save.getLevelNum(), config);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Couldn't load the saved game from " + config.SAVE_FILE + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Start playing a level, saving it as it is played if saving is turned on.
+     * @param newSession The level to play.
+     * @param levelNum Which number level is being played.
+     * @param config The game's settings.
+     */
+    private void startLevel(GameSession newSession, int levelNum, GameConfig config) {
+        session = newSession;
+        if (!config.SAVE_FILE.isEmpty()) {
+            autosaver = new Autosaver(Paths.get(config.SAVE_FILE), levelNum, config.getLevelFile(levelNum),
+                    config.AUTOSAVE_INTERVAL_SECONDS * config.TICKS_PER_SECOND);
+            session.setAutosaver(autosaver);
+        }
+        TICK_INPUT.clear();
+        CLOCK.reset();
+        if (config.THREADED_SIMULATION) {
+            simulation = new SimulationThread(session, config);
+            simulation.start();
+        }
+    }
+
+    /**
+     * Let go of the previous level's images before loading a new level.
+     */
+    private void disposeLevel() {
+        if (simulation != null) {
+            simulation.stop();
+            simulation = null;
+        }
+        if (autosaver != null) {
+            autosaver.close();
+            autosaver = null;
+        }
+        if (session != null) {
+            session.getLevel().dispose();
+            session = null;
+        }
+    }
+
+    /**
+     * Save the level being played as the game is closed, so it can be carried on later, and save its recording so
+     * far, which is marked as unfinished.
+     */
+    private void saveOnExit() {
+        // The level mustn't be ticked while it is saved
+        if (simulation != null) {
+            simulation.stop();
+            simulation = null;
+        }
+        saveRecording();
+        if (autosaver == null) {
+            return;
+        }
+        session.setAutosaver(null);
+        if (session.getGameState() == GameState.STARTED) {
+            autosaver.save(session);
+            autosaver.close();
+        }
+        else {
+            autosaver.discard();
+        }
+        autosaver = null;
+    }
+
+    /**
+     * Tidy up once the level has been won or lost: save its recording, and delete its save, since it can't be
+     * carried on any more.
+     */
+    private void finishLevel() {
+        saveRecording();
+        if (autosaver != null) {
+            session.setAutosaver(null);
+            autosaver.discard();
+            autosaver = null;
+        }
+    }
+
+    /**
+     * Save the level's recording, if games are being recorded, whether or not the level has finished.
+     * The game carries on if the recording can't be saved.
+     */
+    private void saveRecording() {
+        if (recorder == null) {
+            return;
+        }
+        InputRecording recording = recorder.finish(session);
+        recorder = null;
+        Path path = Paths.get(recordingDirectory,
+                "level" + recording.getLevelNum() + "-" + recording.getSeed() + InputRecording.EXTENSION);
+        try {
+            Files.createDirectories(path.getParent());
+            recording.write(path);
+        } catch (IOException e) {
+            System.err.println("Couldn't save the recording to " + path + ": " + e.getMessage());
         }
     }
 }
@@ -0,0 +1,156 @@
+package main;
+
+import bagel.Keys;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a session's ticks on their own thread, so simulating a level and drawing it overlap rather than sharing
+ * one frame.
+ * After each batch of ticks the level is recorded into a snapshot and published through a triple buffer, and the
+ * window's thread draws whichever snapshot is newest without ever waiting for the simulation.
+ * Every entity image is loaded before the thread starts, because images can only be created on the window's thread.
+ */
+public class SimulationThread implements Runnable {
+    private final GameSession SESSION;
+    private final FixedTimestep CLOCK;
+    private final long TICK_NANOS;
+    private final String[] IMAGE_PATHS;
+    private final TripleBuffer<WorldSnapshot> SNAPSHOTS = new TripleBuffer<>(WorldSnapshot::new);
+    private final InputFrame TICK_INPUT = new InputFrame();
+    private final AtomicInteger PRESSED_KEYS = new AtomicInteger();
+    private volatile int downKeys = 0;
+    private volatile boolean running = false;
+    private Thread thread = null;
+
+    /**
+     * Get the session being simulated.
+     * @return The session being simulated.
+     */
+    public GameSession getSession() {
+        return SESSION;
+    }
+
+    /**
+     * Start simulating the session.
+     * Should be called from the window's thread.
+     */
+    public void start() {
+        for (String path: IMAGE_PATHS) {
+            Assets.acquireImage(path);
+        }
+        SNAPSHOTS.getBack().record(SESSION, System.nanoTime());
+        SNAPSHOTS.publish();
+        running = true;
+        thread = new Thread(this, "simulation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop simulating the session, waiting for the tick in progress to finish.
+     * Should be called from the window's thread, before the session's level is disposed of.
+     */
+    public void stop() {
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+        for (String path: IMAGE_PATHS) {
+            Assets.releaseImage(path);
+        }
+    }
+
+    /**
+     * Pass the keys the player is pressing on to the simulation.
+     * Should be called by the window's thread every frame. Presses are held onto until a tick has seen them.
+     * @param input The window's input.
+     */
+    public void submitInput(InputSource input) {
+        int down = 0;
+        int pressed = 0;
+        for (int i = 0; i < GameSession.CONTROLS.length; i++) {
+            if (input.isDown(GameSession.CONTROLS[i])) {
+                down |= 1 << i;
+            }
+            if (input.wasPressed(GameSession.CONTROLS[i])) {
+                pressed |= 1 << i;
+            }
+        }
+        downKeys = down;
+        if (pressed != 0) {
+            PRESSED_KEYS.getAndAccumulate(pressed, (a, b) -> a | b);
+        }
+    }
+
+    /**
+     * Draw the newest snapshot of the level, interpolating from the time it was recorded.
+     * Should be called from the window's thread. Never waits for the simulation.
+     * @param renderer The renderer to draw the level with.
+     * @param now The current value of System.nanoTime.
+     * @return The state of the game in the snapshot drawn.
+     */
+    public GameState render(LayeredRenderer renderer, long now) {
+        WorldSnapshot snapshot = SNAPSHOTS.getLatest();
+        double alpha = Math.min(1.0, (double) (now - snapshot.getRecordedAt()) / TICK_NANOS);
+        snapshot.draw(renderer, alpha);
+        return snapshot.getGameState();
+    }
+
+    /**
+     * Run ticks at a fixed rate until the game is won or lost, or the thread is stopped.
+     */
+    @Override
+    public void run() {
+        CLOCK.reset();
+        while (running) {
+            int ticks = CLOCK.advance(System.nanoTime());
+            if (ticks > 0) {
+                takeInput();
+                GameState gameState = SESSION.getGameState();
+                for (int i = 0; i < ticks && gameState == GameState.STARTED; i++) {
+                    gameState = SESSION.update(TICK_INPUT);
+                    TICK_INPUT.clearPresses();
+                }
+                SNAPSHOTS.getBack().record(SESSION, System.nanoTime());
+                SNAPSHOTS.publish();
+                if (gameState != GameState.STARTED) {
+                    return;
+                }
+            }
+            LockSupport.parkNanos(CLOCK.getNanosUntilNextTick());
+        }
+    }
+
+    private void takeInput() {
+        int down = downKeys;
+        int pressed = PRESSED_KEYS.getAndSet(0);
+        for (int i = 0; i < GameSession.CONTROLS.length; i++) {
+            Keys key = GameSession.CONTROLS[i];
+            TICK_INPUT.setDown(key, (down & (1 << i)) != 0);
+            if ((pressed & (1 << i)) != 0) {
+                TICK_INPUT.setPressed(key, true);
+            }
+        }
+    }
+
+    /**
+     * Default constructor for the simulation thread.
+     * @param session The session to simulate.
+     * @param config The game's settings.
+     */
+    public SimulationThread(GameSession session, GameConfig config) {
+        this.SESSION = session;
+        this.CLOCK = new FixedTimestep(config.TICKS_PER_SECOND, config.MAX_TICKS_PER_FRAME);
+        this.TICK_NANOS = 1_000_000_000L / config.TICKS_PER_SECOND;
+        this.IMAGE_PATHS = config.getEntityImagePaths();
+    }
+}
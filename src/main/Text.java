@@ -15,20 +15,39 @@ public class Text {
     private int x;
     private int y;
     private Colour colour = Colour.WHITE;
+    private final DrawOptions OPTIONS;
+    private final StringBuilder BUFFER = new StringBuilder();
+    private String valueText = null;
+    private long value;
 
     /**
      * Draw the message to the screen.
+     * @param renderer The renderer to draw the message with.
      */
-    public void draw() {
-        FONT.drawString(message, x, y, new DrawOptions().setBlendColour(colour));
+    public void draw(Renderer renderer) {
+        renderer.drawString(FONT, message, x, y, OPTIONS);
     }
 
     /**
-     * Draw the message to the screen + additional text.
-     * @param message Additional text to add after the text's default message.
+     * Update the number shown after the message, such as a score.
+     * The text is only rebuilt when the number changes, so setting the same number every tick allocates nothing.
+     * @param value The number to add after the text's default message.
      */
-    public void drawConcatenate(String message) {
-        FONT.drawString(String.format(this.message + message), x, y, new DrawOptions().setBlendColour(colour));
+    public void setValue(long value) {
+        if (valueText == null || value != this.value) {
+            this.value = value;
+            BUFFER.setLength(0);
+            valueText = BUFFER.append(message).append(value).toString();
+        }
+    }
+
+    /**
+     * Draw the message to the screen followed by the number given to setValue.
+     * Doesn't change the text, so it is safe to call while drawing.
+     * @param renderer The renderer to draw the message with.
+     */
+    public void drawValue(Renderer renderer) {
+        renderer.drawString(FONT, valueText == null ? message : valueText, x, y, OPTIONS);
     }
 
     /**
@@ -43,6 +62,7 @@ public class Text {
         this.FONT = font;
         this.x = x;
         this.y = y;
+        this.OPTIONS = new DrawOptions().setBlendColour(colour);
     }
 
     /**
@@ -59,6 +79,7 @@ public class Text {
         this.x = x;
         this.y = y;
         this.colour = colour;
+        this.OPTIONS = new DrawOptions().setBlendColour(colour);
     }
 
     /**
@@ -72,5 +93,6 @@ public class Text {
         this.FONT = font;
         this.x = (int) (Window.getWidth()/2.0 - font.getWidth(message)/2.0);
         this.y = y;
+        this.OPTIONS = new DrawOptions().setBlendColour(colour);
     }
 }
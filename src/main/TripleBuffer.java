@@ -0,0 +1,62 @@
+package main;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Three reusable buffers shared between one thread which writes them and one thread which reads them.
+ * The writer fills the back buffer and publishes it; the reader takes whichever buffer was published most recently.
+ * Neither thread ever waits for the other, and a buffer is never written while it is being read.
+ * @param <T> The type of the buffers.
+ */
+public class TripleBuffer<T> {
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+    private final Object[] BUFFERS = new Object[3];
+    /**
+     * The index of the buffer which was handed over last, with FRESH set if the reader hasn't taken it yet.
+     */
+    private final AtomicInteger MIDDLE = new AtomicInteger(1);
+    private int back = 0;
+    private int front = 2;
+
+    /**
+     * Get the buffer the writer should fill next. Should only be called by the writing thread.
+     * @return The back buffer.
+     */
+    @SuppressWarnings("unchecked")
+    public T getBack() {
+        return (T) BUFFERS[back];
+    }
+
+    /**
+     * Hand the back buffer over to the reader, and take another buffer to fill next.
+     * Should only be called by the writing thread.
+     */
+    public void publish() {
+        back = MIDDLE.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Get the buffer which was published most recently. Should only be called by the reading thread.
+     * The buffer stays the reader's until the next call, even if newer buffers are published in the meantime.
+     * @return The latest buffer.
+     */
+    @SuppressWarnings("unchecked")
+    public T getLatest() {
+        if ((MIDDLE.get() & FRESH) != 0) {
+            front = MIDDLE.getAndSet(front) & INDEX_MASK;
+        }
+        return (T) BUFFERS[front];
+    }
+
+    /**
+     * Default constructor for the triple buffer.
+     * @param factory Creates each of the three buffers.
+     */
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < BUFFERS.length; i++) {
+            BUFFERS[i] = factory.get();
+        }
+    }
+}
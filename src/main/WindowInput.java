@@ -0,0 +1,39 @@
+package main;
+
+import bagel.Input;
+import bagel.Keys;
+
+/**
+ * Input read from the game window's keyboard.
+ */
+public class WindowInput implements InputSource {
+    private Input input;
+
+    /**
+     * Update the window input this frame's input is read from.
+     * @param input The input bagel has given the program this frame.
+     */
+    public void setInput(Input input) {
+        this.input = input;
+    }
+
+    /**
+     * Check whether a key is currently held down.
+     * @param key The key to check.
+     * @return Whether the key is held down.
+     */
+    @Override
+    public boolean isDown(Keys key) {
+        return input.isDown(key);
+    }
+
+    /**
+     * Check whether a key was pressed since the last frame.
+     * @param key The key to check.
+     * @return Whether the key was pressed since the last frame.
+     */
+    @Override
+    public boolean wasPressed(Keys key) {
+        return input.wasPressed(key);
+    }
+}
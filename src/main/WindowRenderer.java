@@ -0,0 +1,36 @@
+package main;
+
+import bagel.DrawOptions;
+import bagel.Font;
+import bagel.Image;
+
+/**
+ * Draws to the game window using bagel.
+ * Bagel has no call for drawing many copies of an image at once, so drawImages is left to draw each copy with its own
+ * Image.draw call.
+ */
+public class WindowRenderer implements Renderer {
+    /**
+     * Draw an image centred on a point on the screen.
+     * @param image The image to draw.
+     * @param x The x coordinate of the image's centre.
+     * @param y The y coordinate of the image's centre.
+     */
+    @Override
+    public void drawImage(Image image, double x, double y) {
+        image.draw(x, y);
+    }
+
+    /**
+     * Draw a string of text.
+     * @param font The font to draw the text in.
+     * @param text The text to draw.
+     * @param x The x coordinate of the text's bottom left corner.
+     * @param y The y coordinate of the text's bottom left corner.
+     * @param options Extra drawing options, such as the text's colour.
+     */
+    @Override
+    public void drawString(Font font, String text, double x, double y, DrawOptions options) {
+        font.drawString(text, x, y, options);
+    }
+}
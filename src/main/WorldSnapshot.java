@@ -0,0 +1,167 @@
+package main;
+
+import bagel.DrawOptions;
+import bagel.Font;
+import bagel.Image;
+
+import java.util.Arrays;
+
+/**
+ * Everything needed to draw a level as it was after a tick, so the level can be drawn on one thread while the next
+ * tick runs on another.
+ * A snapshot is recorded by drawing the level into it twice: once where everything was at the start of the tick, and
+ * once where everything is at the end. Drawing the snapshot interpolates between the two.
+ * Snapshots are reused, so recording a snapshot doesn't allocate once its arrays have grown.
+ */
+public class WorldSnapshot implements LayeredRenderer {
+    private static final int INITIAL_CAPACITY = 256;
+    private int[] layers = new int[INITIAL_CAPACITY];
+    private Object[] textures = new Object[INITIAL_CAPACITY];
+    private String[] texts = new String[INITIAL_CAPACITY];
+    private DrawOptions[] options = new DrawOptions[INITIAL_CAPACITY];
+    private double[] startXs = new double[INITIAL_CAPACITY];
+    private double[] startYs = new double[INITIAL_CAPACITY];
+    private double[] endXs = new double[INITIAL_CAPACITY];
+    private double[] endYs = new double[INITIAL_CAPACITY];
+    private int size = 0;
+    private int layer = TERRAIN;
+    private boolean recordingEnd = false;
+    private int cursor = 0;
+    private GameState gameState = GameState.STARTED;
+    private int ticks = 0;
+    private long recordedAt = 0;
+
+    /**
+     * Get the state of the game when the snapshot was recorded.
+     * @return The state of the game when the snapshot was recorded.
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    /**
+     * Get how many ticks the level had been played for when the snapshot was recorded.
+     * @return How many ticks the level had been played for.
+     */
+    public int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Get when the snapshot was recorded.
+     * @return The value of System.nanoTime when the snapshot was recorded.
+     */
+    public long getRecordedAt() {
+        return recordedAt;
+    }
+
+    /**
+     * Record what the level in a session looks like now, replacing whatever the snapshot held before.
+     * @param session The session whose level should be recorded.
+     * @param now The current value of System.nanoTime.
+     */
+    public void record(GameSession session, long now) {
+        Arrays.fill(textures, 0, size, null);
+        Arrays.fill(texts, 0, size, null);
+        Arrays.fill(options, 0, size, null);
+        size = 0;
+        layer = TERRAIN;
+        session.getLevel().drawWorld(this, 0);
+        recordingEnd = true;
+        cursor = 0;
+        session.getLevel().drawWorld(this, 1);
+        recordingEnd = false;
+        gameState = session.getGameState();
+        ticks = session.getTicks();
+        recordedAt = now;
+    }
+
+    /**
+     * Draw the snapshot.
+     * @param renderer The renderer to draw the snapshot with.
+     * @param alpha 0 to draw things where they were at the start of the tick, 1 to draw them where they were at
+     *              the end.
+     */
+    public void draw(LayeredRenderer renderer, double alpha) {
+        for (int i = 0; i < size; i++) {
+            renderer.setLayer(layers[i]);
+            if (texts[i] != null) {
+                renderer.drawString((Font) textures[i], texts[i], startXs[i], startYs[i], options[i]);
+            }
+            else {
+                renderer.drawImage((Image) textures[i], Camera.interpolate(startXs[i], endXs[i], alpha),
+                        Camera.interpolate(startYs[i], endYs[i], alpha));
+            }
+        }
+    }
+
+    /**
+     * Update which layer things recorded from now on are drawn on.
+     * @param layer The layer to draw on, such as CHARACTERS.
+     */
+    @Override
+    public void setLayer(int layer) {
+        this.layer = layer;
+    }
+
+    /**
+     * Record an image drawn centred on a point on the screen.
+     * @param image The image to draw.
+     * @param x The x coordinate of the image's centre.
+     * @param y The y coordinate of the image's centre.
+     */
+    @Override
+    public void drawImage(Image image, double x, double y) {
+        if (recordingEnd) {
+            endXs[cursor] = x;
+            endYs[cursor] = y;
+            cursor++;
+            return;
+        }
+        add(image, null, x, y, null);
+    }
+
+    /**
+     * Record a string of text.
+     * @param font The font to draw the text in.
+     * @param text The text to draw.
+     * @param x The x coordinate of the text's bottom left corner.
+     * @param y The y coordinate of the text's bottom left corner.
+     * @param options Extra drawing options, such as the text's colour.
+     */
+    @Override
+    public void drawString(Font font, String text, double x, double y, DrawOptions options) {
+        if (recordingEnd) {
+            cursor++;
+            return;
+        }
+        add(font, text, x, y, options);
+    }
+
+    private void add(Object texture, String text, double x, double y, DrawOptions drawOptions) {
+        if (size == layers.length) {
+            grow();
+        }
+        layers[size] = layer;
+        textures[size] = texture;
+        texts[size] = text;
+        options[size] = drawOptions;
+        startXs[size] = x;
+        startYs[size] = y;
+        endXs[size] = x;
+        endYs[size] = y;
+        size++;
+    }
+
+    private void grow() {
+        int capacity = layers.length * 2;
+        layers = Arrays.copyOf(layers, capacity);
+        textures = Arrays.copyOf(textures, capacity);
+        texts = Arrays.copyOf(texts, capacity);
+        options = Arrays.copyOf(options, capacity);
+        startXs = Arrays.copyOf(startXs, capacity);
+        startYs = Arrays.copyOf(startYs, capacity);
+        endXs = Arrays.copyOf(endXs, capacity);
+        endYs = Arrays.copyOf(endYs, capacity);
+    }
+}